@@ -0,0 +1,109 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.qcri.rheem.core.api.exception.RheemException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A byte range of a local text file. Every line belongs to the split that contains its first byte, so that the splits
+ * of a file can be processed independently and in parallel.
+ */
+public class FileSplit {
+
+    private final Path path;
+
+    private final long start, end;
+
+    public FileSplit(Path path, long start, long end) {
+        this.path = path;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Splits a local file into byte ranges of about the same size.
+     *
+     * @param url       URL of the file
+     * @param numSplits the desired number of splits
+     * @return the {@link FileSplit}s
+     */
+    public static List<FileSplit> split(String url, int numSplits) {
+        Path path = toPath(url);
+        long size = path.toFile().length();
+        numSplits = (int) Math.max(1, Math.min(numSplits, size));
+        List<FileSplit> splits = new ArrayList<>(numSplits);
+        for (int i = 0; i < numSplits; i++) {
+            splits.add(new FileSplit(path, size * i / numSplits, size * (i + 1) / numSplits));
+        }
+        return splits;
+    }
+
+    /**
+     * Resolves a URL to a local {@link Path}.
+     */
+    static Path toPath(String url) {
+        if (url.startsWith("file:")) return Paths.get(URI.create(url));
+        if (url.contains("://")) throw new RheemException(String.format("Baselines require local files: %s", url));
+        return Paths.get(url);
+    }
+
+    /**
+     * Feeds all lines of this split (without line terminators) to a {@link Consumer}.
+     *
+     * @param consumer the {@link Consumer}
+     */
+    public void forEachLine(Consumer<String> consumer) {
+        // Start one byte early to tell whether the first line begins right at the start.
+        long position = Math.max(0, this.start - 1);
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(position)), 1 << 16)) {
+            int b;
+            if (this.start > 0) {
+                // Skip the rest of the line that belongs to the previous split.
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b == '\n') break;
+                }
+            }
+
+            byte[] buffer = new byte[256];
+            while (position < this.end) {
+                int length = 0;
+                boolean isEndOfFile = true;
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b == '\n') {
+                        isEndOfFile = false;
+                        break;
+                    }
+                    if (length == buffer.length) buffer = Arrays.copyOf(buffer, 2 * length);
+                    buffer[length++] = (byte) b;
+                }
+                if (isEndOfFile && length == 0) break;
+                if (length > 0 && buffer[length - 1] == '\r') length--;
+                consumer.accept(new String(buffer, 0, length, StandardCharsets.UTF_8));
+                if (isEndOfFile) break;
+            }
+        } catch (IOException e) {
+            throw new RheemException(String.format("Could not read %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s, %d..%d]", this.getClass().getSimpleName(), this.path, this.start, this.end);
+    }
+}
@@ -0,0 +1,153 @@
+package org.qcri.rheem.apps.baseline;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Native counterpart of the k-means app: The points are kept in primitive arrays and each iteration sums up the
+ * points per nearest centroid over chunks of the points in parallel.
+ */
+public class KmeansBaseline {
+
+    /**
+     * Two-dimensional points in primitive arrays.
+     */
+    public static class Points {
+
+        public final double[] xs, ys;
+
+        public Points(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        public int size() {
+            return this.xs.length;
+        }
+    }
+
+    /**
+     * Parses the points of a CSV file with lines of the form {@code x,y}.
+     *
+     * @param inputUrl  URL of the local file
+     * @param numSplits the number of {@link FileSplit}s to parse in parallel
+     * @return the {@link Points}
+     */
+    public static Points load(String inputUrl, int numSplits) {
+        List<Points> splitPoints = FileSplit.split(inputUrl, numSplits).parallelStream()
+                .map(split -> {
+                    double[][] coordinates = {new double[1024], new double[1024]};
+                    int[] size = {0};
+                    split.forEachLine(line -> {
+                        if (line.isEmpty()) return;
+                        int commaPos = line.indexOf(',');
+                        int end = line.indexOf(',', commaPos + 1);
+                        if (size[0] == coordinates[0].length) {
+                            coordinates[0] = Arrays.copyOf(coordinates[0], 2 * size[0]);
+                            coordinates[1] = Arrays.copyOf(coordinates[1], 2 * size[0]);
+                        }
+                        coordinates[0][size[0]] = Double.parseDouble(line.substring(0, commaPos));
+                        coordinates[1][size[0]] = Double.parseDouble(line.substring(commaPos + 1, end == -1 ? line.length() : end));
+                        size[0]++;
+                    });
+                    return new Points(Arrays.copyOf(coordinates[0], size[0]), Arrays.copyOf(coordinates[1], size[0]));
+                })
+                .collect(Collectors.toList());
+
+        int numPoints = splitPoints.stream().mapToInt(Points::size).sum();
+        Points points = new Points(new double[numPoints], new double[numPoints]);
+        int offset = 0;
+        for (Points split : splitPoints) {
+            System.arraycopy(split.xs, 0, points.xs, offset, split.size());
+            System.arraycopy(split.ys, 0, points.ys, offset, split.size());
+            offset += split.size();
+        }
+        return points;
+    }
+
+    /**
+     * Runs k-means.
+     *
+     * @param points      the {@link Points}
+     * @param k           the number of centroids
+     * @param iterations  the number of iterations
+     * @param isResurrect whether centroids that are not nearest to any point should be replaced by random ones
+     * @param numChunks   the number of chunks of points to process in parallel
+     * @param seed        seeds the random centroids
+     * @return the final centroids as {@code {xs, ys}}
+     */
+    public static double[][] run(Points points, int k, int iterations, boolean isResurrect, int numChunks, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] xs = new double[k], ys = new double[k];
+        int numCentroids = addRandomCentroids(xs, ys, 0, k, random);
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            final double[] centroidXs = Arrays.copyOf(xs, numCentroids), centroidYs = Arrays.copyOf(ys, numCentroids);
+            // Sum up x, y, and the count for each centroid.
+            double[] sums = IntStream.range(0, numChunks).parallel()
+                    .mapToObj(chunk -> {
+                        double[] chunkSums = new double[3 * centroidXs.length];
+                        int from = (int) ((long) points.size() * chunk / numChunks);
+                        int to = (int) ((long) points.size() * (chunk + 1) / numChunks);
+                        for (int i = from; i < to; i++) {
+                            int nearest = findNearest(points.xs[i], points.ys[i], centroidXs, centroidYs);
+                            if (nearest == -1) continue;
+                            chunkSums[3 * nearest] += points.xs[i];
+                            chunkSums[3 * nearest + 1] += points.ys[i];
+                            chunkSums[3 * nearest + 2]++;
+                        }
+                        return chunkSums;
+                    })
+                    .reduce(KmeansBaseline::addInPlace)
+                    .orElseGet(() -> new double[3 * centroidXs.length]);
+
+            // Average the points and drop centroids that have not been nearest to any point.
+            numCentroids = 0;
+            for (int c = 0; c < centroidXs.length; c++) {
+                double count = sums[3 * c + 2];
+                if (count == 0) continue;
+                xs[numCentroids] = sums[3 * c] / count;
+                ys[numCentroids] = sums[3 * c + 1] / count;
+                numCentroids++;
+            }
+            if (isResurrect) numCentroids = addRandomCentroids(xs, ys, numCentroids, k, random);
+        }
+
+        return new double[][]{Arrays.copyOf(xs, numCentroids), Arrays.copyOf(ys, numCentroids)};
+    }
+
+    private static int addRandomCentroids(double[] xs, double[] ys, int numCentroids, int k, SplittableRandom random) {
+        for (; numCentroids < k; numCentroids++) {
+            xs[numCentroids] = nextGaussian(random);
+            ys[numCentroids] = nextGaussian(random);
+        }
+        return numCentroids;
+    }
+
+    private static double nextGaussian(SplittableRandom random) {
+        // Box-Muller transform, as SplittableRandom has no nextGaussian().
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static int findNearest(double x, double y, double[] centroidXs, double[] centroidYs) {
+        double minSquaredDistance = Double.POSITIVE_INFINITY;
+        int nearest = -1;
+        for (int c = 0; c < centroidXs.length; c++) {
+            double dx = x - centroidXs[c], dy = y - centroidYs[c];
+            double squaredDistance = dx * dx + dy * dy;
+            if (squaredDistance < minSquaredDistance) {
+                minSquaredDistance = squaredDistance;
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+
+    private static double[] addInPlace(double[] target, double[] summand) {
+        for (int i = 0; i < target.length; i++) target[i] += summand[i];
+        return target;
+    }
+}
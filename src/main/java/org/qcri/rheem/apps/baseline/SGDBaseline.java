@@ -0,0 +1,97 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.qcri.rheem.apps.sgd.Optimizer;
+import org.qcri.rheem.apps.sgd.SparsePoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Native counterpart of the sparse SGD of {@code SGDImprovedImpl}: The data points are parsed in parallel once, and
+ * each iteration sums up the logistic gradients of a random sample over chunks of the sample in parallel before
+ * applying the {@link Optimizer}.
+ */
+public class SGDBaseline {
+
+    /**
+     * Parses a LIBSVM file.
+     *
+     * @param datasetUrl URL of the local file
+     * @param numSplits  the number of {@link FileSplit}s to parse in parallel
+     * @return the {@link SparsePoint}s
+     */
+    public static SparsePoint[] load(String datasetUrl, int numSplits) {
+        return FileSplit.split(datasetUrl, numSplits).parallelStream()
+                .flatMap(split -> {
+                    List<SparsePoint> points = new ArrayList<>();
+                    split.forEachLine(line -> {
+                        if (!line.isEmpty()) points.add(SparsePoint.parse(line));
+                    });
+                    return points.stream();
+                })
+                .toArray(SparsePoint[]::new);
+    }
+
+    /**
+     * Trains a logistic regression model.
+     *
+     * @param points        the training data
+     * @param features      the number of features
+     * @param maxIterations the maximum number of iterations
+     * @param accuracy      the convergence threshold for the relative change of the weights
+     * @param sampleSize    the number of data points to sample (with replacement) in each iteration
+     * @param optimizer     the update rule
+     * @param stepSize      the base step size for the {@code optimizer}
+     * @param numChunks     the number of chunks of the sample to process in parallel
+     * @param seed          seeds the sampling
+     * @return the model as described in {@link Optimizer}
+     */
+    public static double[] train(SparsePoint[] points,
+                                 int features,
+                                 int maxIterations,
+                                 double accuracy,
+                                 int sampleSize,
+                                 Optimizer optimizer,
+                                 double stepSize,
+                                 int numChunks,
+                                 long seed) {
+        double[] model = optimizer.createModel(features);
+        for (int iteration = 0; iteration <= maxIterations; iteration++) {
+            final double[] weights = model;
+            final long iterationSeed = seed + iteration;
+            // Sum up the gradients, prepended by their count.
+            double[] input = IntStream.range(0, numChunks).parallel()
+                    .mapToObj(chunk -> {
+                        double[] chunkInput = new double[features + 1];
+                        SplittableRandom random = new SplittableRandom(iterationSeed * numChunks + chunk);
+                        int from = (int) ((long) sampleSize * chunk / numChunks);
+                        int to = (int) ((long) sampleSize * (chunk + 1) / numChunks);
+                        for (int i = from; i < to; i++) {
+                            SparsePoint point = points[random.nextInt(points.length)];
+                            double dot = point.dot(weights);
+                            point.addTo((1 / (1 + Math.exp(-1 * dot))) - point.label, chunkInput, 1);
+                            chunkInput[0]++;
+                        }
+                        return chunkInput;
+                    })
+                    .reduce((sum1, sum2) -> {
+                        for (int j = 0; j < sum1.length; j++) sum1[j] += sum2[j];
+                        return sum1;
+                    })
+                    .orElseGet(() -> new double[features + 1]);
+            if (input[0] == 0) break;
+            model = optimizer.update(model, input, features, iteration, stepSize);
+
+            // Check the convergence like the Rheem app does.
+            double normDiff = 0, normWeights = 0;
+            for (int j = 0; j < features; j++) {
+                normDiff += Math.abs(model[j] - weights[j]);
+                normWeights += Math.abs(model[j]);
+            }
+            if (normDiff < accuracy * Math.max(normWeights, 1.0)) break;
+        }
+        return model;
+    }
+}
@@ -0,0 +1,141 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.qcri.rheem.apps.tpch.data.q1.ReturnTuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Native counterpart of TPC-H Query 1 over a {@code LINEITEM} file with {@code |}-separated fields: Each
+ * {@link FileSplit} is aggregated into primitive arrays with a slot per group, and the partial aggregates are merged
+ * in a fork/join fashion. Dates are compared in the same representation as in the Rheem query.
+ */
+public class TpcHQ1Baseline {
+
+    /**
+     * Partial aggregates of the groups, i.e., the return flag and line status along with the sums of the quantity, the
+     * extended price, the discount, the discounted price, the charge, and the count for each group.
+     */
+    static class Aggregates {
+
+        private static final int NUM_SUMS = 6;
+
+        private int[] keys = new int[8];
+
+        private double[] sums = new double[8 * NUM_SUMS];
+
+        private int numGroups = 0;
+
+        void add(int key, double quantity, double extendedPrice, double discount, double tax, double count) {
+            int group = this.findOrCreateGroup(key);
+            double discountedPrice = extendedPrice * (1 - discount);
+            this.sums[group * NUM_SUMS] += quantity;
+            this.sums[group * NUM_SUMS + 1] += extendedPrice;
+            this.sums[group * NUM_SUMS + 2] += discount;
+            this.sums[group * NUM_SUMS + 3] += discountedPrice;
+            this.sums[group * NUM_SUMS + 4] += discountedPrice * (1 + tax);
+            this.sums[group * NUM_SUMS + 5] += count;
+        }
+
+        Aggregates addAll(Aggregates that) {
+            for (int thatGroup = 0; thatGroup < that.numGroups; thatGroup++) {
+                int group = this.findOrCreateGroup(that.keys[thatGroup]);
+                for (int i = 0; i < NUM_SUMS; i++) {
+                    this.sums[group * NUM_SUMS + i] += that.sums[thatGroup * NUM_SUMS + i];
+                }
+            }
+            return this;
+        }
+
+        /**
+         * There are only a handful of groups, so a linear search is the fastest lookup.
+         */
+        private int findOrCreateGroup(int key) {
+            for (int group = 0; group < this.numGroups; group++) {
+                if (this.keys[group] == key) return group;
+            }
+            if (this.numGroups == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, 2 * this.numGroups);
+                this.sums = Arrays.copyOf(this.sums, 2 * this.numGroups * NUM_SUMS);
+            }
+            this.keys[this.numGroups] = key;
+            return this.numGroups++;
+        }
+
+        List<ReturnTuple> toReturnTuples() {
+            List<ReturnTuple> result = new ArrayList<>(this.numGroups);
+            for (int group = 0; group < this.numGroups; group++) {
+                double count = this.sums[group * NUM_SUMS + 5];
+                result.add(new ReturnTuple(
+                        (char) (this.keys[group] >>> 16),
+                        (char) this.keys[group],
+                        this.sums[group * NUM_SUMS],
+                        this.sums[group * NUM_SUMS + 1],
+                        this.sums[group * NUM_SUMS + 3],
+                        this.sums[group * NUM_SUMS + 4],
+                        this.sums[group * NUM_SUMS] / count,
+                        this.sums[group * NUM_SUMS + 1] / count,
+                        this.sums[group * NUM_SUMS + 2] / count,
+                        (int) count
+                ));
+            }
+            result.sort(Comparator.<ReturnTuple>comparingInt(tuple -> tuple.L_RETURNFLAG)
+                    .thenComparingInt(tuple -> tuple.L_LINESTATUS));
+            return result;
+        }
+    }
+
+    /**
+     * Runs the query.
+     *
+     * @param lineItemUrl URL of the local {@code LINEITEM} file
+     * @param delta       the {@code [DELTA]} parameter of the query in days
+     * @param numSplits   the number of {@link FileSplit}s to process in parallel
+     * @return the result rows ordered by return flag and line status
+     */
+    public static List<ReturnTuple> run(String lineItemUrl, int delta, int numSplits) {
+        final int maxShipDate = parseDate("1998-12-01", 0) - delta;
+        return FileSplit.split(lineItemUrl, numSplits).parallelStream()
+                .map(split -> {
+                    Aggregates aggregates = new Aggregates();
+                    int[] fieldStarts = new int[12];
+                    split.forEachLine(line -> {
+                        if (line.isEmpty()) return;
+                        // Locate the first fields without splitting the whole line.
+                        fieldStarts[0] = 0;
+                        for (int field = 1; field < fieldStarts.length; field++) {
+                            fieldStarts[field] = line.indexOf('|', fieldStarts[field - 1]) + 1;
+                        }
+                        if (parseDate(line, fieldStarts[10]) > maxShipDate) return;
+                        aggregates.add(
+                                (line.charAt(fieldStarts[8]) << 16) | line.charAt(fieldStarts[9]),
+                                parseDouble(line, fieldStarts[4], fieldStarts[5]),
+                                parseDouble(line, fieldStarts[5], fieldStarts[6]),
+                                parseDouble(line, fieldStarts[6], fieldStarts[7]),
+                                parseDouble(line, fieldStarts[7], fieldStarts[8]),
+                                1
+                        );
+                    });
+                    return aggregates;
+                })
+                .reduce(Aggregates::addAll)
+                .orElseGet(Aggregates::new)
+                .toReturnTuples();
+    }
+
+    private static double parseDouble(String line, int fieldStart, int nextFieldStart) {
+        return Double.parseDouble(line.substring(fieldStart, nextFieldStart - 1));
+    }
+
+    /**
+     * Parses a {@code yyyy-mm-dd} date like {@code CsvUtils.parseDate}.
+     */
+    static int parseDate(String str, int start) {
+        int year = Integer.parseInt(str.substring(start, start + 4));
+        int month = Integer.parseInt(str.substring(start + 5, start + 7));
+        int day = Integer.parseInt(str.substring(start + 8, start + 10));
+        return year * 365 + month * 30 + day;
+    }
+}
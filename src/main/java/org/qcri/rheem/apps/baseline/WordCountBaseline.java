@@ -0,0 +1,34 @@
+package org.qcri.rheem.apps.baseline;
+
+import java.util.regex.Pattern;
+
+/**
+ * Native counterpart of the word count app: Each {@link FileSplit} is counted in its own {@link WordCounter} and the
+ * counters are merged in a fork/join fashion.
+ */
+public class WordCountBaseline {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("\\W+");
+
+    /**
+     * Counts the words in a file.
+     *
+     * @param inputUrl  URL of the local file
+     * @param numSplits the number of {@link FileSplit}s to process in parallel
+     * @return the {@link WordCounter}
+     */
+    public static WordCounter count(String inputUrl, int numSplits) {
+        return FileSplit.split(inputUrl, numSplits).parallelStream()
+                .map(split -> {
+                    WordCounter counter = new WordCounter();
+                    split.forEachLine(line -> {
+                        for (String word : WORD_SEPARATOR.split(line)) {
+                            if (!word.isEmpty()) counter.add(word.toLowerCase(), 1);
+                        }
+                    });
+                    return counter;
+                })
+                .reduce(WordCounter::addAll)
+                .orElseGet(WordCounter::new);
+    }
+}
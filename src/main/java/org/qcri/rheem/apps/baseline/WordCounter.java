@@ -0,0 +1,99 @@
+package org.qcri.rheem.apps.baseline;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts words in an open-addressing hash table with the counts in a primitive array, so that counting does not
+ * create an object per increment.
+ */
+public class WordCounter {
+
+    private String[] words = new String[1024];
+
+    private int[] counts = new int[1024];
+
+    private int size = 0;
+
+    /**
+     * Adds to the count of a word.
+     *
+     * @param word  the word
+     * @param count the count to add
+     */
+    public void add(String word, int count) {
+        int mask = this.words.length - 1;
+        int slot = mix(word.hashCode()) & mask;
+        while (this.words[slot] != null) {
+            if (this.words[slot].equals(word)) {
+                this.counts[slot] += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.words[slot] = word;
+        this.counts[slot] = count;
+        if (++this.size > this.words.length / 2) this.grow();
+    }
+
+    /**
+     * Adds all counts of another instance to this instance.
+     *
+     * @return this instance
+     */
+    public WordCounter addAll(WordCounter that) {
+        that.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * Looks up the count of a word.
+     *
+     * @param word the word
+     * @return the count or {@code 0} if the word has not been counted
+     */
+    public int get(String word) {
+        int mask = this.words.length - 1;
+        int slot = mix(word.hashCode()) & mask;
+        while (this.words[slot] != null) {
+            if (this.words[slot].equals(word)) return this.counts[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of distinct words
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Applies a {@link ObjIntConsumer} to all words and their counts.
+     */
+    public void forEach(ObjIntConsumer<String> consumer) {
+        for (int slot = 0; slot < this.words.length; slot++) {
+            if (this.words[slot] != null) consumer.accept(this.words[slot], this.counts[slot]);
+        }
+    }
+
+    private void grow() {
+        String[] oldWords = this.words;
+        int[] oldCounts = this.counts;
+        this.words = new String[2 * oldWords.length];
+        this.counts = new int[2 * oldCounts.length];
+        int mask = this.words.length - 1;
+        for (int oldSlot = 0; oldSlot < oldWords.length; oldSlot++) {
+            if (oldWords[oldSlot] == null) continue;
+            int slot = mix(oldWords[oldSlot].hashCode()) & mask;
+            while (this.words[slot] != null) slot = (slot + 1) & mask;
+            this.words[slot] = oldWords[oldSlot];
+            this.counts[slot] = oldCounts[oldSlot];
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
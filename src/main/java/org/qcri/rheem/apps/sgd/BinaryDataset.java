@@ -0,0 +1,205 @@
+package org.qcri.rheem.apps.sgd;
+
+import org.qcri.rheem.core.api.exception.RheemException;
+import org.qcri.rheem.core.util.fs.FileSystems;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary layout of a LIBSVM dataset, so that it needs to be parsed only once and individual rows can be decoded
+ * without touching the rest of the dataset.
+ * <p>The data file contains the rows back to back, each consisting of its label ({@code double}), the number of its
+ * non-zero features ({@code int}), their 0-based indices ({@code int}s), and their values ({@code double}s). The index
+ * file next to it contains the start offsets of all rows as {@code long}s plus the end offset of the last row. All
+ * numbers are big-endian. The rows are decoded with positional reads.</p>
+ * <p>Note that the files are local files and must be available to all workers under the same path.</p>
+ */
+public class BinaryDataset {
+
+    /**
+     * Suffix of the index file name.
+     */
+    public static final String INDEX_SUFFIX = ".index";
+
+    /**
+     * Tells whether a complete binary dataset exists.
+     *
+     * @param binaryUrl URL of the binary data file
+     * @return whether both the data and the index file exist and the index ends with the size of the data file
+     */
+    public static boolean exists(String binaryUrl) {
+        Path dataPath = toPath(binaryUrl), indexPath = toPath(binaryUrl + INDEX_SUFFIX);
+        if (!Files.isRegularFile(dataPath) || !Files.isRegularFile(indexPath)) return false;
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long indexSize = index.size();
+            if (indexSize < Long.BYTES || indexSize % Long.BYTES != 0) return false;
+            ByteBuffer endOffset = ByteBuffer.allocate(Long.BYTES);
+            Reader.readFully(index, endOffset, indexSize - Long.BYTES);
+            return endOffset.getLong(0) == Files.size(dataPath);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts a LIBSVM dataset into the binary layout. Both files are written to temporary files first and then
+     * renamed, the index file last, so that an interrupted conversion does not leave a dataset that passes
+     * {@link #exists(String)}.
+     *
+     * @param datasetUrl URL of the LIBSVM dataset
+     * @param binaryUrl  URL of the binary data file to create
+     * @return the number of converted rows
+     */
+    public static long convert(String datasetUrl, String binaryUrl) {
+        Path dataPath = toPath(binaryUrl), indexPath = toPath(binaryUrl + INDEX_SUFFIX);
+        Path tempDataPath = dataPath.resolveSibling(dataPath.getFileName() + ".tmp");
+        Path tempIndexPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        long numRows = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                FileSystems.requireFileSystem(datasetUrl).open(datasetUrl), "UTF-8"));
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                     new FileOutputStream(tempDataPath.toFile()), 1 << 16));
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(
+                     new FileOutputStream(tempIndexPath.toFile()), 1 << 16))) {
+            long offset = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                SparsePoint point = SparsePoint.parse(line);
+                index.writeLong(offset);
+                data.writeDouble(point.label);
+                data.writeInt(point.indices.length);
+                for (int featureIndex : point.indices) data.writeInt(featureIndex);
+                for (double value : point.values) data.writeDouble(value);
+                offset += Double.BYTES + Integer.BYTES + point.indices.length * (Integer.BYTES + Double.BYTES);
+                numRows++;
+            }
+            index.writeLong(offset);
+        } catch (IOException | RuntimeException e) {
+            tempDataPath.toFile().delete();
+            tempIndexPath.toFile().delete();
+            throw new RheemException(String.format("Could not convert %s to %s.", datasetUrl, binaryUrl), e);
+        }
+        try {
+            // Remove any stale index first, so that the old index and the new data file never appear together.
+            Files.deleteIfExists(indexPath);
+            Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RheemException(String.format("Could not move the converted files to %s.", binaryUrl), e);
+        }
+        return numRows;
+    }
+
+    /**
+     * Resolves a URL to a local {@link Path}.
+     */
+    static Path toPath(String url) {
+        if (url.startsWith("file:")) return Paths.get(URI.create(url));
+        if (url.contains("://")) throw new RheemException(String.format("Binary datasets must be local files: %s", url));
+        return Paths.get(url);
+    }
+
+    /**
+     * Decodes individual rows from a binary dataset.
+     */
+    public static class Reader implements AutoCloseable {
+
+        private final FileChannel data, index;
+
+        private final long numRows;
+
+        private final ByteBuffer offsetBuffer = ByteBuffer.allocate(2 * Long.BYTES);
+
+        private ByteBuffer rowBuffer = ByteBuffer.allocate(1024);
+
+        public Reader(String binaryUrl) {
+            try {
+                this.data = FileChannel.open(toPath(binaryUrl), StandardOpenOption.READ);
+                this.index = FileChannel.open(toPath(binaryUrl + INDEX_SUFFIX), StandardOpenOption.READ);
+                this.numRows = this.index.size() / Long.BYTES - 1;
+            } catch (IOException e) {
+                throw new RheemException(String.format("Could not open %s.", binaryUrl), e);
+            }
+        }
+
+        /**
+         * @return the number of rows in the dataset
+         */
+        public long getNumRows() {
+            return this.numRows;
+        }
+
+        /**
+         * Decodes a row.
+         *
+         * @param row the 0-based row ID
+         * @return the decoded {@link SparsePoint}
+         */
+        public SparsePoint read(long row) {
+            try {
+                this.offsetBuffer.clear();
+                readFully(this.index, this.offsetBuffer, row * Long.BYTES);
+                long start = this.offsetBuffer.getLong(0), end = this.offsetBuffer.getLong(Long.BYTES);
+                int length = (int) (end - start);
+                if (this.rowBuffer.capacity() < length) this.rowBuffer = ByteBuffer.allocate(Math.max(length, 2 * this.rowBuffer.capacity()));
+                this.rowBuffer.clear().limit(length);
+                readFully(this.data, this.rowBuffer, start);
+                this.rowBuffer.flip();
+
+                double label = this.rowBuffer.getDouble();
+                int numFeatures = this.rowBuffer.getInt();
+                int[] indices = new int[numFeatures];
+                double[] values = new double[numFeatures];
+                for (int i = 0; i < numFeatures; i++) indices[i] = this.rowBuffer.getInt();
+                for (int i = 0; i < numFeatures; i++) values[i] = this.rowBuffer.getDouble();
+                return new SparsePoint(label, indices, values);
+            } catch (IOException e) {
+                throw new RheemException(String.format("Could not read row %d.", row), e);
+            }
+        }
+
+        static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int numReadBytes = channel.read(buffer, position);
+                if (numReadBytes < 0) throw new IOException("Unexpected end of file.");
+                position += numReadBytes;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                this.data.close();
+                this.index.close();
+            } catch (IOException e) {
+                throw new RheemException("Could not close binary dataset.", e);
+            }
+        }
+    }
+
+    /**
+     * Converts a LIBSVM dataset.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: <LIBSVM dataset URL> <binary dataset URL>");
+            System.exit(1);
+        }
+        long numRows = convert(args[0], args[1]);
+        System.out.printf("Converted %,d rows.\n", numRows);
+    }
+}
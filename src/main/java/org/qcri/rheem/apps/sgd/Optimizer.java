@@ -0,0 +1,101 @@
+package org.qcri.rheem.apps.sgd;
+
+/**
+ * Update rules for the SGD. Besides the weights, a model carries the state of its update rule, the best holdout loss
+ * so far, and the current holdout loss, i.e., it has the layout
+ * {@code [weights..., optimizer state..., best holdout loss, holdout loss]}.
+ */
+public enum Optimizer {
+
+    /**
+     * Plain SGD with a step size that decays with the iterations.
+     */
+    SGD(0, 1d),
+
+    /**
+     * AdaGrad, which keeps the sums of the squared gradients.
+     */
+    ADAGRAD(1, 0.1d),
+
+    /**
+     * Adam, which keeps the decaying averages of the gradients and of the squared gradients.
+     */
+    ADAM(2, 0.01d);
+
+    private static final double BETA1 = 0.9, BETA2 = 0.999, EPSILON = 1e-8;
+
+    /**
+     * The number of state values per feature.
+     */
+    private final int stateFactor;
+
+    /**
+     * A step size that usually works with this update rule.
+     */
+    public final double defaultStepSize;
+
+    Optimizer(int stateFactor, double defaultStepSize) {
+        this.stateFactor = stateFactor;
+        this.defaultStepSize = defaultStepSize;
+    }
+
+    /**
+     * Creates an initial model.
+     *
+     * @param features the number of features
+     * @return the initial model with zero weights and unknown holdout losses
+     */
+    public double[] createModel(int features) {
+        double[] model = new double[features * (1 + this.stateFactor) + 2];
+        model[model.length - 2] = Double.MAX_VALUE;
+        model[model.length - 1] = Double.MAX_VALUE;
+        return model;
+    }
+
+    /**
+     * Applies the update rule.
+     *
+     * @param model     the current model
+     * @param input     the sum of the gradients of the sampled data points prepended by their count
+     * @param features  the number of features
+     * @param iteration the 0-based iteration
+     * @param stepSize  the base step size
+     * @return the updated model
+     */
+    public double[] update(double[] model, double[] input, int features, int iteration, double stepSize) {
+        double count = input[0];
+        double[] newModel = model.clone();
+        switch (this) {
+            case SGD: {
+                double alpha = stepSize / (iteration + 1);
+                for (int j = 0; j < features; j++) {
+                    newModel[j] = model[j] - alpha * (1.0 / count) * input[j + 1];
+                }
+                break;
+            }
+            case ADAGRAD: {
+                for (int j = 0; j < features; j++) {
+                    double gradient = input[j + 1] / count;
+                    newModel[features + j] += gradient * gradient;
+                    newModel[j] = model[j] - stepSize * gradient / (Math.sqrt(newModel[features + j]) + EPSILON);
+                }
+                break;
+            }
+            case ADAM: {
+                double biasCorrection1 = 1 - Math.pow(BETA1, iteration + 1);
+                double biasCorrection2 = 1 - Math.pow(BETA2, iteration + 1);
+                for (int j = 0; j < features; j++) {
+                    double gradient = input[j + 1] / count;
+                    double m = newModel[features + j] = BETA1 * model[features + j] + (1 - BETA1) * gradient;
+                    double v = newModel[2 * features + j] = BETA2 * model[2 * features + j] + (1 - BETA2) * gradient * gradient;
+                    newModel[j] = model[j] - stepSize * (m / biasCorrection1) / (Math.sqrt(v / biasCorrection2) + EPSILON);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown optimizer: " + this);
+        }
+        return newModel;
+    }
+
+}
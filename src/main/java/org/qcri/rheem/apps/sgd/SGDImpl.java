@@ -109,7 +109,8 @@ class Transform implements FunctionDescriptor.SerializableFunction<String, doubl
                 continue;
             }
             String kv[] = pointStr[i].split(":", 2);
-            point[Integer.parseInt(kv[0]) - 1] = Double.parseDouble(kv[1]);
+            // Feature k goes to point[k], because point[0] holds the label.
+            point[Integer.parseInt(kv[0])] = Double.parseDouble(kv[1]);
         }
         return point;
     }
@@ -6,6 +6,7 @@ import org.qcri.rheem.api.JavaPlanBuilder;
 import org.qcri.rheem.basic.data.Tuple2;
 import org.qcri.rheem.core.api.Configuration;
 import org.qcri.rheem.core.api.RheemContext;
+import org.qcri.rheem.core.api.exception.RheemException;
 import org.qcri.rheem.core.function.ExecutionContext;
 import org.qcri.rheem.core.function.FunctionDescriptor;
 import org.qcri.rheem.core.plugin.Plugin;
@@ -16,6 +17,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class executes a stochastic gradient descent optimization on Rheem, just like {@link SGDImpl}. However,
@@ -50,6 +56,65 @@ public class SGDImprovedImpl {
                           double accuracy,
                           int sampleSize,
                           Experiment experiment) {
+        return this.apply(datasetUrl, datasetSize, features, maxIterations, accuracy, sampleSize, false, experiment);
+    }
+
+    public double[] apply(String datasetUrl,
+                          int datasetSize,
+                          int features,
+                          int maxIterations,
+                          double accuracy,
+                          int sampleSize,
+                          boolean isSparse,
+                          Experiment experiment) {
+        return this.apply(datasetUrl, datasetSize, features, maxIterations, accuracy, sampleSize, isSparse,
+                Optimizer.SGD, Optimizer.SGD.defaultStepSize, null, experiment);
+    }
+
+    /**
+     * Runs the SGD.
+     *
+     * @return the trained weights
+     * @see #train
+     */
+    public double[] apply(String datasetUrl,
+                          int datasetSize,
+                          int features,
+                          int maxIterations,
+                          double accuracy,
+                          int sampleSize,
+                          boolean isSparse,
+                          Optimizer optimizer,
+                          double stepSize,
+                          String holdoutUrl,
+                          Experiment experiment) {
+        double[] finalModel = this.train(datasetUrl, datasetSize, features, maxIterations, accuracy, sampleSize,
+                isSparse, optimizer, stepSize, holdoutUrl, experiment);
+        return finalModel == null ? null : Arrays.copyOf(finalModel, features); // Support null for when execution is skipped.
+    }
+
+    /**
+     * Runs the SGD.
+     *
+     * @param isSparse   whether to represent the data points as {@link SparsePoint}s rather than dense arrays
+     * @param optimizer  the update rule
+     * @param stepSize   the base step size for the {@code optimizer}
+     * @param holdoutUrl URL of a holdout dataset or {@code null}; if given, the SGD stops as soon as the loss on this
+     *                   dataset improves by less than the {@code accuracy} (relatively) rather than when the weights
+     *                   converge
+     * @return the trained model as described in {@link Optimizer} or {@code null} if the execution was skipped
+     */
+    public double[] train(String datasetUrl,
+                          int datasetSize,
+                          int features,
+                          int maxIterations,
+                          double accuracy,
+                          int sampleSize,
+                          boolean isSparse,
+                          Optimizer optimizer,
+                          double stepSize,
+                          String holdoutUrl,
+                          Experiment experiment) {
 
         // Initialize the builder.
         RheemContext rheemContext = new RheemContext(this.configuration);
@@ -60,37 +125,208 @@ public class SGDImprovedImpl {
         if (experiment != null) javaPlanBuilder.withExperiment(experiment);
         javaPlanBuilder.withUdfJarOf(this.getClass());
 
+        // Create the initial model.
+        List<double[]> model = Arrays.asList(optimizer.createModel(features));
+        final DataQuantaBuilder<?, double[]> modelBuilder = javaPlanBuilder
+                .loadCollection(model).withName("init model");
+
+        // Load and transform the data, then do the SGD.
+        Collection<double[]> results;
+        if (isSparse) {
+            final DataQuantaBuilder<?, SparsePoint> transformBuilder = javaPlanBuilder
+                    .readTextFile(datasetUrl).withName("source")
+                    .mapPartitions(new TransformSparsePerPartition()).withName("transform");
+            final DataQuantaBuilder<?, SparsePoint> holdoutBuilder = holdoutUrl == null ? null : javaPlanBuilder
+                    .readTextFile(holdoutUrl).withName("holdout source")
+                    .mapPartitions(new TransformSparsePerPartition()).withName("holdout transform");
+            results = this.descend(modelBuilder, transformBuilder, new ComputeSparseLogisticGradientPerPartition(features),
+                    holdoutBuilder, new ComputeSparseLogisticLossPerPartition(),
+                    features, datasetSize, maxIterations, accuracy, sampleSize, optimizer, stepSize);
+        } else {
+            final DataQuantaBuilder<?, double[]> transformBuilder = javaPlanBuilder
+                    .readTextFile(datasetUrl).withName("source")
+                    .mapPartitions(new TransformPerPartition(features)).withName("transform");
+            final DataQuantaBuilder<?, double[]> holdoutBuilder = holdoutUrl == null ? null : javaPlanBuilder
+                    .readTextFile(holdoutUrl).withName("holdout source")
+                    .mapPartitions(new TransformPerPartition(features)).withName("holdout transform");
+            results = this.descend(modelBuilder, transformBuilder, new ComputeLogisticGradientPerPartition(features),
+                    holdoutBuilder, new ComputeLogisticLossPerPartition(features),
+                    features, datasetSize, maxIterations, accuracy, sampleSize, optimizer, stepSize);
+        }
+
+        // Return the results.
+        return RheemCollections.getSingleOrNull(results);
+    }
+
+    /**
+     * Runs the SGD on a dataset in the layout of {@link BinaryDataset}. Instead of sampling the whole dataset, each
+     * iteration draws random row IDs and decodes only those rows. Note that the row IDs stem from the single model, so
+     * that the rows are decoded in a single partition.
+     *
+     * @param binaryUrl URL of the binary data file
+     * @param seed      seeds the row ID sampling
+     * @return the trained weights
+     */
+    public double[] applyOnBinaryDataset(String binaryUrl,
+                                         int features,
+                                         int maxIterations,
+                                         double accuracy,
+                                         int sampleSize,
+                                         long seed,
+                                         Experiment experiment) {
+
+        // Initialize the builder.
+        RheemContext rheemContext = new RheemContext(this.configuration);
+        for (Plugin plugin : this.plugins) {
+            rheemContext.withPlugin(plugin);
+        }
+        JavaPlanBuilder javaPlanBuilder = new JavaPlanBuilder(rheemContext);
+        if (experiment != null) javaPlanBuilder.withExperiment(experiment);
+        javaPlanBuilder.withUdfJarOf(this.getClass());
+
+        long numRows;
+        try (BinaryDataset.Reader reader = new BinaryDataset.Reader(binaryUrl)) {
+            numRows = reader.getNumRows();
+        }
+        if (numRows == 0) {
+            throw new RheemException(String.format("Cannot sample from %s, as it contains no rows.", binaryUrl));
+        }
+
         // Create initial weights.
         List<double[]> weights = Arrays.asList(new double[features]);
         final DataQuantaBuilder<?, double[]> weightsBuilder = javaPlanBuilder
                 .loadCollection(weights).withName("init weights");
 
+        // Do the SGD.
+        Collection<double[]> results = weightsBuilder.doWhile(new LoopCondition(accuracy, maxIterations), w -> {
+            // Sample and decode the rows and update the weights.
+            DataQuantaBuilder<?, double[]> newWeightsDataset = w
+                    .flatMap(new SampleRowIds(numRows, sampleSize, seed)).withName("sample row IDs")
+                    .mapPartitions(new ReadBinaryRows(binaryUrl)).withName("read rows")
+                    .mapPartitions(new ComputeSparseLogisticGradientPerPartition(features)).withBroadcast(w, "weights").withName("compute")
+                    .reduce(new Sum()).withName("reduce")
+                    .map(new WeightsUpdate()).withBroadcast(w, "weights").withName("update");
+
+            // Calculate the convergence criterion.
+            DataQuantaBuilder<?, Tuple2<Double, Double>> convergenceDataset = newWeightsDataset
+                    .map(new ComputeNorm()).withBroadcast(w, "weights");
+
+            return new Tuple<>(newWeightsDataset, convergenceDataset);
+        }).withExpectedNumberOfIterations(maxIterations).collect();
+
+        // Return the results.
+        return RheemCollections.getSingleOrNull(results); // Support null for when execution is skipped.
+    }
+
+    /**
+     * Runs the SGD with model averaging: In every round, each partition runs several local mini-batch SGD steps on its
+     * data points, optionally with multiple Hogwild-style threads that update a shared model without synchronization.
+     * The partition models are then averaged. This requires far fewer rounds than {@link #apply} with its single
+     * global step per round.
+     *
+     * @param batchSize  the number of data points per local step
+     * @param localSteps the number of local steps per thread and round
+     * @param numThreads the number of threads per partition
+     * @param seed       seeds the mini-batch sampling
+     * @return the trained model, i.e., the weights followed by the mean training loss of the last round, the
+     * number of rounds, and the number of partition models averaged in the last round
+     */
+    public double[] applyWithModelAveraging(String datasetUrl,
+                                            int features,
+                                            int maxIterations,
+                                            double accuracy,
+                                            int batchSize,
+                                            int localSteps,
+                                            int numThreads,
+                                            long seed,
+                                            Experiment experiment) {
+
+        // Initialize the builder.
+        RheemContext rheemContext = new RheemContext(this.configuration);
+        for (Plugin plugin : this.plugins) {
+            rheemContext.withPlugin(plugin);
+        }
+        JavaPlanBuilder javaPlanBuilder = new JavaPlanBuilder(rheemContext);
+        if (experiment != null) javaPlanBuilder.withExperiment(experiment);
+        javaPlanBuilder.withUdfJarOf(this.getClass());
+
+        // Create the initial model, i.e., the weights followed by the loss, the round, and the number of averaged models.
+        List<double[]> model = Arrays.asList(new double[features + 3]);
+        final DataQuantaBuilder<?, double[]> modelBuilder = javaPlanBuilder
+                .loadCollection(model).withName("init model");
+
         // Load and transform the data.
         final DataQuantaBuilder<?, double[]> transformBuilder = javaPlanBuilder
                 .readTextFile(datasetUrl).withName("source")
                 .mapPartitions(new TransformPerPartition(features)).withName("transform");
 
+        // Do the SGD.
+        Collection<double[]> results = modelBuilder.doWhile(new LoopCondition(accuracy, maxIterations), m -> {
+            // Train the partition models and average them.
+            DataQuantaBuilder<?, double[]> newModelDataset = transformBuilder
+                    .mapPartitions(new LocalSGDPerPartition(features, batchSize, localSteps, numThreads, seed))
+                    .withBroadcast(m, "model").withName("train locally")
+                    .reduce(new Sum()).withName("reduce")
+                    .map(new AverageModels()).withName("average");
 
-        // Do the SGD
-        Collection<double[]> results  =
-                weightsBuilder.doWhile(new LoopCondition(accuracy, maxIterations), w -> {
-                    // Sample the data and update the weights.
-                    DataQuantaBuilder<?, double[]> newWeightsDataset = transformBuilder
-                        .sample(sampleSize).withDatasetSize(datasetSize).withBroadcast(w, "weights")
-                        .mapPartitions(new ComputeLogisticGradientPerPartition(features)).withBroadcast(w, "weights").withName("compute")
-                        .reduce(new Sum()).withName("reduce")
-                        .map(new WeightsUpdate()).withBroadcast(w, "weights").withName("update");
-
-                    // Calculate the convergence criterion.
-                    DataQuantaBuilder<?, Tuple2<Double, Double>> convergenceDataset = newWeightsDataset
-                            .map(new ComputeNorm()).withBroadcast(w, "weights");
+            // Calculate the convergence criterion.
+            DataQuantaBuilder<?, Tuple2<Double, Double>> convergenceDataset = newModelDataset
+                    .map(new ComputeModelNorm(features)).withBroadcast(m, "model");
 
-                    return new Tuple<>(newWeightsDataset, convergenceDataset);
-                }).withExpectedNumberOfIterations(maxIterations).collect();
+            return new Tuple<>(newModelDataset, convergenceDataset);
+        }).withExpectedNumberOfIterations(maxIterations).collect();
 
         // Return the results.
         return RheemCollections.getSingleOrNull(results); // Support null for when execution is skipped.
+    }
+
+    /**
+     * Builds and executes the gradient descent loop.
+     *
+     * @param modelBuilder     provides the initial model as described in {@link Optimizer}
+     * @param transformBuilder provides the data points
+     * @param computeGradient  calculates the partition-wise sum of gradients for the data points
+     * @param holdoutBuilder   provides the holdout data points or {@code null}
+     * @param computeLoss      calculates the partition-wise count and sum of losses for the holdout data points
+     * @return the final model
+     */
+    private <T> Collection<double[]> descend(DataQuantaBuilder<?, double[]> modelBuilder,
+                                             DataQuantaBuilder<?, T> transformBuilder,
+                                             FunctionDescriptor.SerializableFunction<Iterable<T>, Iterable<double[]>> computeGradient,
+                                             DataQuantaBuilder<?, T> holdoutBuilder,
+                                             FunctionDescriptor.SerializableFunction<Iterable<T>, Iterable<double[]>> computeLoss,
+                                             int features,
+                                             int datasetSize,
+                                             int maxIterations,
+                                             double accuracy,
+                                             int sampleSize,
+                                             Optimizer optimizer,
+                                             double stepSize) {
+        return modelBuilder.doWhile(new LoopCondition(accuracy, maxIterations), w -> {
+            // Sample the data and update the model.
+            DataQuantaBuilder<?, double[]> newModelDataset = transformBuilder
+                    .sample(sampleSize).withDatasetSize(datasetSize).withBroadcast(w, "weights")
+                    .mapPartitions(computeGradient).withBroadcast(w, "weights").withName("compute")
+                    .reduce(new Sum()).withName("reduce")
+                    .map(new ModelUpdate(optimizer, stepSize, features)).withBroadcast(w, "weights").withName("update");
+
+            // Calculate the convergence criterion.
+            DataQuantaBuilder<?, Tuple2<Double, Double>> convergenceDataset;
+            if (holdoutBuilder == null) {
+                convergenceDataset = newModelDataset
+                        .map(new ComputeModelNorm(features)).withBroadcast(w, "model");
+            } else {
+                DataQuantaBuilder<?, double[]> lossDataset = holdoutBuilder
+                        .mapPartitions(computeLoss).withBroadcast(newModelDataset, "weights").withName("holdout loss")
+                        .reduce(new Sum()).withName("reduce holdout loss");
+                newModelDataset = newModelDataset
+                        .map(new AttachHoldoutLoss()).withBroadcast(lossDataset, "loss").withName("attach holdout loss");
+                convergenceDataset = newModelDataset
+                        .map(new ComputeHoldoutLossImprovement()).withBroadcast(w, "model");
+            }
 
+            return new Tuple<>(newModelDataset, convergenceDataset);
+        }).withExpectedNumberOfIterations(maxIterations).collect();
     }
 }
 
@@ -114,7 +350,8 @@ class TransformPerPartition implements FunctionDescriptor.SerializableFunction<I
                     continue;
                 }
                 String kv[] = pointStr[i].split(":", 2);
-                point[Integer.parseInt(kv[0])-1] = Double.parseDouble(kv[1]);
+                // Feature k goes to point[k], because point[0] holds the label.
+                point[Integer.parseInt(kv[0])] = Double.parseDouble(kv[1]);
             }
             list.add(point);
         });
@@ -138,9 +375,9 @@ class ComputeLogisticGradientPerPartition implements FunctionDescriptor.Extended
         List<double[]> list = new ArrayList<>(1);
         points.forEach(point -> {
             double dot = 0;
-            for (int j = 0; j < weights.length; j++)
+            for (int j = 0; j < features; j++)
                 dot += weights[j] * point[j + 1];
-            for (int j = 0; j < weights.length; j++)
+            for (int j = 0; j < features; j++)
                 sumGradOfPartition[j + 1] += ((1 / (1 + Math.exp(-1 * dot))) - point[0]) * point[j + 1];
 
             sumGradOfPartition[0] += 1; //counter for the step size required in the update
@@ -156,3 +393,378 @@ class ComputeLogisticGradientPerPartition implements FunctionDescriptor.Extended
         sumGradOfPartition = new double[features + 1];
     }
 }
+
+class TransformSparsePerPartition implements FunctionDescriptor.SerializableFunction<Iterable<String>, Iterable<SparsePoint>> {
+
+    @Override
+    public Iterable<SparsePoint> apply(Iterable<String> lines) {
+        List<SparsePoint> list = new ArrayList<>();
+        lines.forEach(line -> list.add(SparsePoint.parse(line)));
+        return list;
+    }
+}
+
+class ComputeSparseLogisticGradientPerPartition implements FunctionDescriptor.ExtendedSerializableFunction<Iterable<SparsePoint>, Iterable<double[]>> {
+
+    double[] weights;
+    double[] sumGradOfPartition;
+    int features;
+
+    public ComputeSparseLogisticGradientPerPartition(int features) {
+        this.features = features;
+    }
+
+    @Override
+    public Iterable<double[]> apply(Iterable<SparsePoint> points) {
+        List<double[]> list = new ArrayList<>(1);
+        points.forEach(point -> {
+            double dot = point.dot(weights);
+            point.addTo((1 / (1 + Math.exp(-1 * dot))) - point.label, sumGradOfPartition, 1);
+            sumGradOfPartition[0] += 1; //counter for the step size required in the update
+        });
+        list.add(sumGradOfPartition);
+        return list;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.weights = (double[]) executionContext.getBroadcast("weights").iterator().next();
+        sumGradOfPartition = new double[features + 1];
+    }
+}
+
+class SampleRowIds implements FunctionDescriptor.ExtendedSerializableFunction<double[], Iterable<Long>> {
+
+    long numRows;
+    int sampleSize;
+    long seed;
+    int iteration;
+
+    public SampleRowIds(long numRows, int sampleSize, long seed) {
+        if (numRows <= 0) throw new IllegalArgumentException("Cannot sample row IDs from an empty dataset.");
+        this.numRows = numRows;
+        this.sampleSize = sampleSize;
+        this.seed = seed;
+    }
+
+    @Override
+    public Iterable<Long> apply(double[] weights) {
+        // Draw with replacement and sort the row IDs, so that they are read in file order.
+        SplittableRandom random = new SplittableRandom(this.seed + this.iteration);
+        long[] rowIds = new long[sampleSize];
+        for (int i = 0; i < rowIds.length; i++) rowIds[i] = random.nextLong(numRows);
+        Arrays.sort(rowIds);
+        List<Long> list = new ArrayList<>(rowIds.length);
+        for (long rowId : rowIds) list.add(rowId);
+        return list;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.iteration = executionContext.getCurrentIteration();
+    }
+}
+
+class ReadBinaryRows implements FunctionDescriptor.SerializableFunction<Iterable<Long>, Iterable<SparsePoint>> {
+
+    String binaryUrl;
+
+    public ReadBinaryRows(String binaryUrl) {
+        this.binaryUrl = binaryUrl;
+    }
+
+    @Override
+    public Iterable<SparsePoint> apply(Iterable<Long> rowIds) {
+        List<SparsePoint> list = new ArrayList<>();
+        try (BinaryDataset.Reader reader = new BinaryDataset.Reader(binaryUrl)) {
+            rowIds.forEach(rowId -> list.add(reader.read(rowId)));
+        }
+        return list;
+    }
+}
+
+/**
+ * Trains a model on the data points of a partition, starting from the broadcast model. The partition emits its model
+ * in the layout {@code [1, weights..., loss sum, number of loss terms]}, so that the {@link Sum}s of the partition
+ * models can be averaged by {@link AverageModels}.
+ */
+class LocalSGDPerPartition implements FunctionDescriptor.ExtendedSerializableFunction<Iterable<double[]>, Iterable<double[]>> {
+
+    double[] model;
+    int current_iteration;
+    int features;
+    int batchSize;
+    int localSteps;
+    int numThreads;
+    long seed;
+
+    public LocalSGDPerPartition(int features, int batchSize, int localSteps, int numThreads, long seed) {
+        this.features = features;
+        this.batchSize = batchSize;
+        this.localSteps = localSteps;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public Iterable<double[]> apply(Iterable<double[]> points) {
+        List<double[]> pointList = new ArrayList<>();
+        points.forEach(pointList::add);
+        if (pointList.isEmpty()) return new ArrayList<>(0);
+
+        // The threads share the weights without any synchronization, i.e., Hogwild-style.
+        double[] weights = Arrays.copyOf(this.model, features);
+        double[][] losses = new double[numThreads][2];
+        long partitionSeed = this.seed + 31L * this.current_iteration + Arrays.hashCode(pointList.get(0));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(numThreads);
+            for (int t = 0; t < numThreads; t++) {
+                final int threadIndex = t;
+                futures.add(executor.submit(() -> this.train(pointList, weights, losses[threadIndex],
+                        new SplittableRandom(partitionSeed + threadIndex))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RheemException("Interrupted while training.", e);
+        } catch (ExecutionException e) {
+            throw new RheemException("Local training failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double[] result = new double[features + 3];
+        result[0] = 1; //counter for the averaging
+        System.arraycopy(weights, 0, result, 1, features);
+        for (double[] loss : losses) {
+            result[features + 1] += loss[0];
+            result[features + 2] += loss[1];
+        }
+        List<double[]> list = new ArrayList<>(1);
+        list.add(result);
+        return list;
+    }
+
+    private void train(List<double[]> points, double[] weights, double[] loss, SplittableRandom random) {
+        double[] gradient = new double[features];
+        for (int step = 0; step < localSteps; step++) {
+            Arrays.fill(gradient, 0);
+            for (int i = 0; i < batchSize; i++) {
+                double[] point = points.get(random.nextInt(points.size()));
+                double dot = 0;
+                for (int j = 0; j < features; j++)
+                    dot += weights[j] * point[j + 1];
+                double prediction = 1 / (1 + Math.exp(-1 * dot));
+                for (int j = 0; j < features; j++)
+                    gradient[j] += (prediction - point[0]) * point[j + 1];
+                loss[0] += LogisticLoss.of(dot, point[0]);
+                loss[1] += 1;
+            }
+            double alpha = 1.0 / (current_iteration * localSteps + step + 1);
+            for (int j = 0; j < features; j++)
+                weights[j] -= alpha * (1.0 / batchSize) * gradient[j];
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.model = (double[]) executionContext.getBroadcast("model").iterator().next();
+        this.current_iteration = executionContext.getCurrentIteration();
+    }
+}
+
+/**
+ * Averages the summed partition models of {@link LocalSGDPerPartition} into a model of the layout
+ * {@code [weights..., mean loss, round, number of averaged models]}.
+ */
+class AverageModels implements FunctionDescriptor.ExtendedSerializableFunction<double[], double[]> {
+
+    int current_iteration;
+
+    @Override
+    public double[] apply(double[] input) {
+        int features = input.length - 3;
+        double[] model = new double[features + 3];
+        for (int j = 0; j < features; j++)
+            model[j] = input[j + 1] / input[0];
+        model[features] = input[features + 1] / Math.max(input[features + 2], 1);
+        model[features + 1] = current_iteration + 1;
+        model[features + 2] = input[0];
+        return model;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.current_iteration = executionContext.getCurrentIteration();
+    }
+}
+
+/**
+ * Like {@link ComputeNorm}, but considers only the weights of the models of {@link AverageModels}.
+ */
+class ComputeModelNorm implements FunctionDescriptor.ExtendedSerializableFunction<double[], Tuple2<Double, Double>> {
+
+    double[] previousModel;
+    int features;
+
+    public ComputeModelNorm(int features) {
+        this.features = features;
+    }
+
+    @Override
+    public Tuple2<Double, Double> apply(double[] model) {
+        double normDiff = 0.0;
+        double normWeights = 0.0;
+        for (int j = 0; j < features; j++) {
+            normDiff += Math.abs(model[j] - previousModel[j]);
+            normWeights += Math.abs(model[j]);
+        }
+        return new Tuple2<>(normDiff, normWeights);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.previousModel = (double[]) executionContext.getBroadcast("model").iterator().next();
+    }
+}
+
+class ModelUpdate implements FunctionDescriptor.ExtendedSerializableFunction<double[], double[]> {
+
+    double[] model;
+    int current_iteration;
+
+    Optimizer optimizer;
+    double stepSize;
+    int features;
+
+    public ModelUpdate(Optimizer optimizer, double stepSize, int features) {
+        this.optimizer = optimizer;
+        this.stepSize = stepSize;
+        this.features = features;
+    }
+
+    @Override
+    public double[] apply(double[] input) {
+        return optimizer.update(model, input, features, current_iteration, stepSize);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.model = (double[]) executionContext.getBroadcast("weights").iterator().next();
+        this.current_iteration = executionContext.getCurrentIteration();
+    }
+}
+
+class ComputeLogisticLossPerPartition implements FunctionDescriptor.ExtendedSerializableFunction<Iterable<double[]>, Iterable<double[]>> {
+
+    double[] weights;
+    int features;
+
+    public ComputeLogisticLossPerPartition(int features) {
+        this.features = features;
+    }
+
+    @Override
+    public Iterable<double[]> apply(Iterable<double[]> points) {
+        double[] sumLossOfPartition = new double[2]; //position 0 is for the count
+        points.forEach(point -> {
+            double dot = 0;
+            for (int j = 0; j < features; j++)
+                dot += weights[j] * point[j + 1];
+            sumLossOfPartition[1] += LogisticLoss.of(dot, point[0]);
+            sumLossOfPartition[0] += 1;
+        });
+        List<double[]> list = new ArrayList<>(1);
+        list.add(sumLossOfPartition);
+        return list;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.weights = (double[]) executionContext.getBroadcast("weights").iterator().next();
+    }
+}
+
+class ComputeSparseLogisticLossPerPartition implements FunctionDescriptor.ExtendedSerializableFunction<Iterable<SparsePoint>, Iterable<double[]>> {
+
+    double[] weights;
+
+    @Override
+    public Iterable<double[]> apply(Iterable<SparsePoint> points) {
+        double[] sumLossOfPartition = new double[2]; //position 0 is for the count
+        points.forEach(point -> {
+            sumLossOfPartition[1] += LogisticLoss.of(point.dot(weights), point.label);
+            sumLossOfPartition[0] += 1;
+        });
+        List<double[]> list = new ArrayList<>(1);
+        list.add(sumLossOfPartition);
+        return list;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.weights = (double[]) executionContext.getBroadcast("weights").iterator().next();
+    }
+}
+
+class LogisticLoss {
+
+    /**
+     * Calculates the logistic loss of a data point.
+     *
+     * @param dot   the dot product of the weights and the features of the data point
+     * @param label the label of the data point
+     * @return the loss
+     */
+    static double of(double dot, double label) {
+        double prediction = 1 / (1 + Math.exp(-1 * dot));
+        return -(label * Math.log(Math.max(prediction, 1e-15)) + (1 - label) * Math.log(Math.max(1 - prediction, 1e-15)));
+    }
+}
+
+/**
+ * Stores the mean holdout loss in the last position of a model as described in {@link Optimizer} and keeps track of
+ * the best holdout loss in the position before.
+ */
+class AttachHoldoutLoss implements FunctionDescriptor.ExtendedSerializableFunction<double[], double[]> {
+
+    double[] loss;
+
+    @Override
+    public double[] apply(double[] model) {
+        double[] newModel = model.clone();
+        double holdoutLoss = loss[1] / Math.max(loss[0], 1);
+        newModel[newModel.length - 2] = Math.min(model[model.length - 2], holdoutLoss);
+        newModel[newModel.length - 1] = holdoutLoss;
+        return newModel;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.loss = (double[]) executionContext.getBroadcast("loss").iterator().next();
+    }
+}
+
+/**
+ * Provides the improvement of the holdout loss along with the previous holdout loss, so that the
+ * {@link LoopCondition} stops as soon as the improvement is relatively small or the loss deteriorates.
+ */
+class ComputeHoldoutLossImprovement implements FunctionDescriptor.ExtendedSerializableFunction<double[], Tuple2<Double, Double>> {
+
+    double[] previousModel;
+
+    @Override
+    public Tuple2<Double, Double> apply(double[] model) {
+        double previousLoss = previousModel[previousModel.length - 1];
+        double loss = model[model.length - 1];
+        return new Tuple2<>(Math.max(previousLoss - loss, 0d), previousLoss);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        this.previousModel = (double[]) executionContext.getBroadcast("model").iterator().next();
+    }
+}
@@ -0,0 +1,86 @@
+package org.qcri.rheem.apps.sgd;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A labeled data point that stores only its non-zero features.
+ */
+public class SparsePoint implements Serializable {
+
+    /**
+     * The label of the point.
+     */
+    public double label;
+
+    /**
+     * The 0-based indices of the non-zero features in ascending order.
+     */
+    public int[] indices;
+
+    /**
+     * The values of the non-zero features, aligned with {@link #indices}.
+     */
+    public double[] values;
+
+    public SparsePoint(double label, int[] indices, double[] values) {
+        this.label = label;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    public SparsePoint() {
+    }
+
+    /**
+     * Calculates the dot product with a dense vector.
+     *
+     * @param weights the dense vector
+     * @return the dot product
+     */
+    public double dot(double[] weights) {
+        double dot = 0;
+        for (int i = 0; i < this.indices.length; i++) {
+            dot += weights[this.indices[i]] * this.values[i];
+        }
+        return dot;
+    }
+
+    /**
+     * Adds this point, scaled by some factor, to a dense vector.
+     *
+     * @param factor the scaling factor
+     * @param target the dense vector
+     * @param offset position of the feature with index {@code 0} within the {@code target}
+     */
+    public void addTo(double factor, double[] target, int offset) {
+        for (int i = 0; i < this.indices.length; i++) {
+            target[this.indices[i] + offset] += factor * this.values[i];
+        }
+    }
+
+    /**
+     * Parses a LIBSVM line, i.e., {@code <label> <index>:<value> <index>:<value> ...} with 1-based indices in
+     * ascending order.
+     *
+     * @param line the line to parse
+     * @return the parsed {@link SparsePoint}
+     */
+    public static SparsePoint parse(String line) {
+        String[] pointStr = line.split(" ");
+        List<String> components = new ArrayList<>(pointStr.length - 1);
+        for (int i = 1; i < pointStr.length; i++) {
+            if (!pointStr[i].isEmpty()) components.add(pointStr[i]);
+        }
+        int[] indices = new int[components.size()];
+        double[] values = new double[components.size()];
+        for (int i = 0; i < indices.length; i++) {
+            String component = components.get(i);
+            int colonPos = component.indexOf(':');
+            indices[i] = Integer.parseInt(component.substring(0, colonPos)) - 1;
+            values[i] = Double.parseDouble(component.substring(colonPos + 1));
+        }
+        return new SparsePoint(Double.parseDouble(pointStr[0]), indices, values);
+    }
+}
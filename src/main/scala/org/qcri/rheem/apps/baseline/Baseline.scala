@@ -0,0 +1,148 @@
+package org.qcri.rheem.apps.baseline
+
+import java.util.concurrent.{Callable, ForkJoinPool}
+
+import de.hpi.isg.profiledb.instrumentation.StopWatch
+import de.hpi.isg.profiledb.store.model.{Experiment, TimeMeasurement}
+import org.qcri.rheem.apps.kmeans.Kmeans
+import org.qcri.rheem.apps.sgd.{Optimizer, SGD}
+import org.qcri.rheem.apps.tpch.queries.Query1
+import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper, StdOut}
+import org.qcri.rheem.apps.wordcount.WordCountScala
+import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.core.util.fs.FileSystems
+
+import scala.collection.JavaConversions._
+
+/**
+  * Runs native single-JVM implementations of the apps on the same inputs as the Rheem apps to quantify the framework
+  * overhead. The [[Experiment]]s use the [[ExperimentDescriptor]]s and configuration keys of the respective apps with
+  * the plugins `baseline`, so that they end up next to the Rheem runs in the ProfileDB. The parallelism defaults to
+  * the number of cores and can be set via `rheem.apps.baseline.parallelism`.
+  */
+object Baseline {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 2) {
+      println(s"Usage: scala <main class> ${Parameters.experimentHelp} <app> <app args>*")
+      println("Apps:")
+      println(" kmeans <point file> <k> <#iterations>")
+      println(" wordcount <input file>")
+      println(" tpch-q1 <LINEITEM file> [<delta>]")
+      println(" sgd <dataset URL> <#features> <max iterations> <accuracy> <sample size> [<optimizer (sgd|adagrad|adam)>]")
+      sys.exit(1)
+    }
+
+    val configuration = new Configuration
+    val parallelism = configuration.getLongProperty(
+      "rheem.apps.baseline.parallelism", Runtime.getRuntime.availableProcessors
+    ).toInt
+    // Use several splits per thread to balance the load.
+    val numSplits = 4 * parallelism
+    val pool = new ForkJoinPool(parallelism)
+
+    val appArgs = args.drop(2)
+    val experiment = args(1) match {
+      case "kmeans" =>
+        val experiment = this.createExperiment(args(0), Kmeans, parallelism)
+        val (file, k, numIterations) = (appArgs(0), appArgs(1).toInt, appArgs(2).toInt)
+        experiment.getSubject.addConfiguration("input", file)
+        experiment.getSubject.addConfiguration("k", appArgs(1))
+        experiment.getSubject.addConfiguration("iterations", appArgs(2))
+        val stopWatch = new StopWatch(experiment)
+        val points = this.measure(stopWatch, "Load", pool)(KmeansBaseline.load(file, numSplits))
+        val centroids = this.measure(stopWatch, "Compute", pool)(
+          KmeansBaseline.run(points, k, numIterations, true, numSplits, 42L)
+        )
+        this.addInputSize(experiment, file)
+        println(s"Found ${centroids(0).length} centroids:")
+        StdOut.printLimited(centroids(0).zip(centroids(1)).map { case (x, y) => f"($x%.2f, $y%.2f)" }.toSeq, 10)
+        experiment
+
+      case "wordcount" =>
+        val experiment = this.createExperiment(args(0), WordCountScala, parallelism)
+        val file = appArgs(0)
+        experiment.getSubject.addConfiguration("input", file)
+        val stopWatch = new StopWatch(experiment)
+        val wordCounter = this.measure(stopWatch, "Compute", pool)(WordCountBaseline.count(file, numSplits))
+        this.addInputSize(experiment, file)
+        println(s"Found ${wordCounter.size} words.")
+        experiment
+
+      case "tpch-q1" =>
+        val experiment = this.createExperiment(args(0), new Query1(), parallelism)
+        experiment.getSubject.addConfiguration("query", "Q1")
+        val file = appArgs(0)
+        experiment.getSubject.addConfiguration("input", file)
+        val delta = if (appArgs.length > 1) appArgs(1).toInt else 90
+        experiment.getSubject.addConfiguration("delta", delta)
+        val stopWatch = new StopWatch(experiment)
+        val result = this.measure(stopWatch, "Compute", pool)(TpcHQ1Baseline.run(file, delta, numSplits))
+        this.addInputSize(experiment, file)
+        StdOut.printLimited(result, 10)
+        experiment
+
+      case "sgd" =>
+        val experiment = this.createExperiment(args(0), SGD, parallelism)
+        val (datasetUrl, numFeatures, maxIterations, accuracy, sampleSize) =
+          (appArgs(0), appArgs(1).toInt, appArgs(2).toInt, appArgs(3).toDouble, appArgs(4).toInt)
+        val optimizer = Optimizer.valueOf((if (appArgs.length > 5) appArgs(5) else "sgd").toUpperCase)
+        val stepSize = configuration.getStringProperty("rheem.apps.sgd.stepsize", optimizer.defaultStepSize.toString).toDouble
+        // Record the same keys as the SGD app with the preaggregation, so that the runs can be compared.
+        experiment.getSubject.addConfiguration("aggregationType", "preaggregation")
+        experiment.getSubject.addConfiguration("input", datasetUrl)
+        experiment.getSubject.addConfiguration("features", numFeatures)
+        experiment.getSubject.addConfiguration("maxIterations", maxIterations)
+        experiment.getSubject.addConfiguration("accuracy", accuracy)
+        experiment.getSubject.addConfiguration("sampleSize", sampleSize)
+        experiment.getSubject.addConfiguration("representation", "sparse")
+        experiment.getSubject.addConfiguration("optimizer", optimizer.name.toLowerCase)
+        experiment.getSubject.addConfiguration("stepSize", stepSize)
+        val seed = configuration.getLongProperty("rheem.apps.sgd.seed", 42L)
+        val stopWatch = new StopWatch(experiment)
+        val points = this.measure(stopWatch, "Load", pool)(SGDBaseline.load(datasetUrl, numSplits))
+        // The SGD app takes the number of data points as its input size.
+        experiment.getSubject.addConfiguration("inputSize", points.length)
+        val model = this.measure(stopWatch, "Compute", pool)(
+          SGDBaseline.train(points, numFeatures, maxIterations, accuracy, sampleSize, optimizer, stepSize, numSplits, seed)
+        )
+        println(s"Trained weights: ${model.take(numFeatures).mkString(", ")}")
+        experiment
+
+      case other =>
+        println(s"Unknown app: $other")
+        sys.exit(1)
+    }
+    pool.shutdown()
+
+    ProfileDBHelper.store(experiment, configuration)
+  }
+
+  /**
+    * Creates an [[Experiment]] for the baseline of an app.
+    */
+  private def createExperiment(experimentArg: String, app: ExperimentDescriptor, parallelism: Int): Experiment = {
+    val experiment = Parameters.createExperiment(experimentArg, app)
+    experiment.getSubject.addConfiguration("plugins", "baseline")
+    experiment.getSubject.addConfiguration("parallelism", parallelism)
+    experiment
+  }
+
+  /**
+    * Runs a phase of a baseline in a [[ForkJoinPool]], so that its parallel streams use the pool's threads, and
+    * measures it as a [[TimeMeasurement]].
+    */
+  private def measure[T](stopWatch: StopWatch, phase: String, pool: ForkJoinPool)(body: => T): T = {
+    val round = stopWatch.getOrCreateRound(phase)
+    round.start()
+    try pool.submit(new Callable[T] {
+      override def call(): T = body
+    }).get finally round.stop()
+  }
+
+  private def addInputSize(experiment: Experiment, file: String): Unit = {
+    val fileSize = FileSystems.getFileSize(file)
+    if (fileSize.isPresent) experiment.getSubject.addConfiguration("inputSize", fileSize.getAsLong)
+  }
+
+}
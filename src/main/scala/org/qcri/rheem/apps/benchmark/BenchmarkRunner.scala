@@ -0,0 +1,139 @@
+package org.qcri.rheem.apps.benchmark
+
+import java.io.{OutputStreamWriter, PrintWriter}
+
+import org.qcri.rheem.apps.crocopr.CrocoPR
+import org.qcri.rheem.apps.kmeans.Kmeans
+import org.qcri.rheem.apps.sgd.SGD
+import org.qcri.rheem.apps.simwords.{SimWords, Word2NVec}
+import org.qcri.rheem.apps.sindy.Sindy
+import org.qcri.rheem.apps.tpch.TpcH
+import org.qcri.rheem.apps.util._
+import org.qcri.rheem.apps.wordcount.WordCountScala
+import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.core.util.fs.FileSystems
+
+import scala.collection.JavaConversions._
+
+/**
+  * Runs any of the apps repeatedly within a single JVM: First, some warmup runs let the JIT compiler and the caches
+  * settle, then the measured runs provide the wall times that are summarized with [[Statistics]].
+  * <p>The wall times are end-to-end: They cover the whole `main` method of the app, i.e., also printing the result and
+  * storing the app's own experiment to the ProfileDB. The times of the individual phases of an app can be found in its
+  * stored experiments.</p>
+  */
+object BenchmarkRunner extends ExperimentDescriptor {
+
+  override def version = "0.1.0"
+
+  /**
+    * The runnable apps by their names.
+    */
+  val apps: Map[String, Array[String] => Unit] = Map(
+    "kmeans" -> Kmeans.main _,
+    "simwords" -> SimWords.main _,
+    "word2nvec" -> Word2NVec.main _,
+    "crocopr" -> CrocoPR.main _,
+    "sindy" -> Sindy.main _,
+    "sgd" -> SGD.main _,
+    "wordcount" -> WordCountScala.main _,
+    "tpch" -> TpcH.main _
+  )
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 4) {
+      println(s"Usage: scala <main class> ${Parameters.experimentHelp} <app (${apps.keys.toSeq.sorted.mkString("|")})> " +
+        s"<#warmup runs> <#measured runs> <app args>*")
+      sys.exit(1)
+    }
+
+    val experiment = Parameters.createExperiment(args(0), this)
+    val configuration = new Configuration
+    val appName = args(1)
+    experiment.getSubject.addConfiguration("app", appName)
+    val app = apps.getOrElse(appName, sys.error(s"Unknown app: $appName"))
+    val numWarmupRuns = args(2).toInt
+    experiment.getSubject.addConfiguration("warmupRuns", numWarmupRuns)
+    val numMeasuredRuns = args(3).toInt
+    experiment.getSubject.addConfiguration("measuredRuns", numMeasuredRuns)
+    if (numMeasuredRuns < 1) sys.error("Need at least one measured run.")
+    val appArgs = args.drop(4)
+    // Leave out the app's experiment spec: Its ID and tags differ among otherwise comparable runs.
+    experiment.getSubject.addConfiguration("appArgs", appArgs.drop(1).mkString(" "))
+
+    // Do the warmup runs without storing their experiments. As this switch is global, nothing else must store
+    // experiments in the meantime.
+    ProfileDBHelper.isStoring = false
+    try {
+      for (i <- 1 to numWarmupRuns) {
+        println(s"Warmup run $i/$numWarmupRuns took ${formatMillis(this.run(app, appArgs))}.")
+      }
+    } finally {
+      ProfileDBHelper.isStoring = true
+    }
+
+    // Do the measured runs.
+    val wallTimes = for (i <- 1 to numMeasuredRuns) yield {
+      val wallTime = this.run(app, appArgs)
+      println(s"Measured run $i/$numMeasuredRuns took ${formatMillis(wallTime)}.")
+      wallTime
+    }
+
+    // Summarize the measured runs.
+    val statistics = new Statistics(wallTimes.map(_.toDouble))
+    println(s"Wall times of $appName in ms: $statistics")
+    val measurement = ValuesMeasurement.addTo(experiment, "wallTime",
+      "runs" -> seqAsJavaList(wallTimes.map(Long.box))
+    )
+    statistics.addTo(measurement)
+    configuration.getStringProperty("rheem.apps.benchmark.summary", null) match {
+      case url: String => this.writeSummary(url, appName, appArgs, numWarmupRuns, wallTimes, statistics)
+      case _ =>
+    }
+
+    ProfileDBHelper.store(experiment, configuration)
+  }
+
+  /**
+    * Runs an app once.
+    *
+    * @return the wall time in milliseconds, including the app's output and ProfileDB storage
+    */
+  private def run(app: Array[String] => Unit, appArgs: Array[String]): Long = {
+    // Do not account for the garbage of previous runs.
+    System.gc()
+    val startTime = System.currentTimeMillis
+    app(appArgs)
+    System.currentTimeMillis - startTime
+  }
+
+  /**
+    * Writes a JSON document that describes the measured runs.
+    */
+  private def writeSummary(url: String, appName: String, appArgs: Seq[String], numWarmupRuns: Int,
+                           wallTimes: Seq[Long], statistics: Statistics): Unit = {
+    val writer = new PrintWriter(new OutputStreamWriter(FileSystems.requireFileSystem(url).create(url, true), "UTF-8"))
+    try {
+      writer.println("{")
+      writer.println(s"""  "app": ${toJson(appName)},""")
+      writer.println(s"""  "appArgs": [${appArgs.map(toJson).mkString(", ")}],""")
+      writer.println(s"""  "warmupRuns": $numWarmupRuns,""")
+      writer.println(s"""  "wallTimes": [${wallTimes.mkString(", ")}],""")
+      writer.println(s"""  "statistics": {${statistics.toSeq.map { case (k, v) => s"${toJson(k)}: $v" }.mkString(", ")}}""")
+      writer.println("}")
+    } finally {
+      writer.close()
+    }
+    println(s"Wrote summary to $url.")
+  }
+
+  private def toJson(str: String): String = "\"" + str.flatMap {
+    case '"' => "\\\""
+    case '\\' => "\\\\"
+    case c if c < ' ' => "\\u%04x".format(c.toInt)
+    case c => c.toString
+  } + "\""
+
+  private def formatMillis(millis: Long) = f"$millis%,d ms"
+
+}
@@ -0,0 +1,204 @@
+package org.qcri.rheem.apps.benchmark
+
+import java.util.concurrent.{Callable, CyclicBarrier, Executors}
+
+import de.hpi.isg.profiledb.store.model.{Experiment, Subject, TimeMeasurement}
+import org.qcri.rheem.apps.tpch.TpcH
+import org.qcri.rheem.apps.tpch.queries.Query1
+import org.qcri.rheem.apps.util._
+import org.qcri.rheem.core.api.{Configuration, RheemContext}
+import org.qcri.rheem.core.plugin.Plugin
+
+import scala.collection.JavaConversions._
+
+/**
+  * Submits jobs from several threads at the same time to measure how the throughput and latency of Rheem scale with
+  * the concurrency. The jobs either share a single [[RheemContext]] or each thread has its own one. The time spent in
+  * the optimizer is reported separately, as it indicates contention in shared optimizer state.
+  */
+object ConcurrentJobBenchmark extends ExperimentDescriptor {
+
+  override def version = "0.1.0"
+
+  /**
+    * A job that can be run repeatedly on a [[RheemContext]] and reports to an [[Experiment]].
+    */
+  type Job = (RheemContext, Experiment) => Unit
+
+  /**
+    * Describes the job types and their arguments for [[createJob]].
+    */
+  val jobTypeHelp = PlanGenerator.planTypeHelp :+ "q1 <TPC-H config URL> [<delta>]"
+
+  /**
+    * Creates a [[Job]].
+    *
+    * @param jobType       the job type as described in [[jobTypeHelp]]
+    * @param args          the arguments for the job type
+    * @param plugins       the [[Plugin]]s to run the job with
+    * @param configuration the [[Configuration]] of the [[RheemContext]]s that will run the job; job types that need
+    *                      further settings, such as database connections, load them into it
+    * @return the [[Job]]
+    */
+  def createJob(jobType: String, args: Seq[String], plugins: Seq[Plugin],
+                configuration: Configuration): Job = jobType match {
+    case "q1" =>
+      configuration.load(args(0))
+      val delta = if (args.size > 1) args(1).toInt else Query1.defaultDelta
+      val jdbcPlatform = TpcH.findJdbcPlatform(plugins)
+      val createTableSource = TpcH.createTableSourceFactory(jdbcPlatform)
+      val query = new Query1(plugins: _*)
+      (rheemCtx, experiment) => query(rheemCtx, jdbcPlatform, createTableSource, delta)(experiment)
+    case _ =>
+      val planGenerator = PlanGenerator.create(jobType, args)
+      (rheemCtx, experiment) => planGenerator.generatePlanTrigger(rheemCtx, experiment)()
+  }
+
+  /**
+    * Creates a [[RheemContext]] with the given [[Plugin]]s and [[Configuration]].
+    */
+  def createRheemContext(plugins: Seq[Plugin], configuration: Configuration): RheemContext = {
+    val rheemContext = new RheemContext(configuration)
+    plugins.foreach(rheemContext.register)
+    rheemContext
+  }
+
+  /**
+    * Measurements of a single job.
+    *
+    * @param latencyMillis      the wall time of the job
+    * @param optimizationMillis the time spent in the optimizer
+    * @param isFailed           whether the job threw an exception
+    */
+  case class JobResult(latencyMillis: Double, optimizationMillis: Double, isFailed: Boolean)
+
+  /**
+    * Measurements of a single thread.
+    *
+    * @param startNanos when the thread started to submit jobs
+    * @param endNanos   when the last job of the thread finished
+    * @param jobResults the [[JobResult]]s of the thread
+    */
+  case class ThreadResult(startNanos: Long, endNanos: Long, jobResults: Seq[JobResult])
+
+  /**
+    * Runs a [[Job]] once and measures it. Each run reports to its own [[Experiment]], so that concurrent jobs do not
+    * interfere in their measurements.
+    */
+  def runJob(job: Job, rheemContext: RheemContext): JobResult = {
+    val experiment = new Experiment("concurrent-job", new Subject("concurrent-job", version))
+    val startNanos = System.nanoTime
+    val isFailed = try {
+      job(rheemContext, experiment)
+      false
+    } catch {
+      case e: Exception =>
+        e.printStackTrace()
+        true
+    }
+    val latencyMillis = (System.nanoTime - startNanos) / 1000000d
+    val timeMeasurements = experiment.getMeasurements.collect { case time: TimeMeasurement => time }
+    val optimizationMillis = OptimizerScalabilityTest.sumRoundTimes(timeMeasurements, Seq("optimi"))
+    JobResult(latencyMillis, optimizationMillis, isFailed)
+  }
+
+  /**
+    * Runs `numJobsPerThread` jobs on each of `numThreads` threads that start submitting at the same time.
+    *
+    * @param rheemContexts provides the [[RheemContext]] for a new thread; the call happens before the measurement
+    * @return the [[ThreadResult]]s
+    */
+  def runConcurrently(job: Job, numThreads: Int, numJobsPerThread: Int,
+                      rheemContexts: () => RheemContext): Seq[ThreadResult] = {
+    val executor = Executors.newFixedThreadPool(numThreads)
+    val barrier = new CyclicBarrier(numThreads)
+    try {
+      val futures = for (_ <- 1 to numThreads) yield executor.submit(new Callable[ThreadResult] {
+        override def call(): ThreadResult = {
+          val rheemContext = rheemContexts()
+          barrier.await()
+          val startNanos = System.nanoTime
+          val jobResults = for (_ <- 1 to numJobsPerThread) yield runJob(job, rheemContext)
+          ThreadResult(startNanos, System.nanoTime, jobResults)
+        }
+      })
+      futures.map(_.get)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 6) {
+      println(s"Usage: scala <main class> ${Parameters.experimentHelp} <plugin(,plugin)*> <shared|per-thread> " +
+        s"<#threads(,#threads)*> <#jobs per thread> <job type> <job type args>*")
+      println("Job types:")
+      jobTypeHelp.foreach(help => println(s" $help"))
+      sys.exit(1)
+    }
+
+    val experiment = Parameters.createExperiment(args(0), this)
+    val configuration = new Configuration
+    val plugins = Parameters.loadPlugins(args(1))
+    experiment.getSubject.addConfiguration("plugins", args(1))
+    val contextMode = args(2)
+    experiment.getSubject.addConfiguration("contexts", contextMode)
+    val threadCounts = args(3).split(",").map(_.toInt)
+    experiment.getSubject.addConfiguration("threads", args(3))
+    val numJobsPerThread = args(4).toInt
+    experiment.getSubject.addConfiguration("jobsPerThread", numJobsPerThread)
+    val jobType = args(5)
+    experiment.getSubject.addConfiguration("jobType", jobType)
+    experiment.getSubject.addConfiguration("jobArgs", args.drop(6).mkString(" "))
+    val job = createJob(jobType, args.drop(6), plugins, configuration)
+
+    val rheemContexts: () => RheemContext = contextMode match {
+      case "shared" =>
+        val sharedRheemContext = createRheemContext(plugins, configuration)
+        () => sharedRheemContext
+      case "per-thread" => () => createRheemContext(plugins, configuration)
+      case _ => sys.error(s"Unknown context mode: $contextMode")
+    }
+
+    // Warm up with sequential jobs, so that the first concurrency level is not penalized by the JIT compiler.
+    val numWarmupJobs = configuration.getLongProperty("rheem.apps.benchmark.warmup", 1L).toInt
+    if (numWarmupJobs > 0) {
+      runConcurrently(job, 1, numWarmupJobs, rheemContexts)
+      println(s"Ran $numWarmupJobs warmup job(s).")
+    }
+
+    var baselineOptimizationMillis = Double.NaN
+    for (numThreads <- threadCounts) {
+      System.gc()
+      val threadResults = runConcurrently(job, numThreads, numJobsPerThread, rheemContexts)
+      val jobResults = threadResults.flatMap(_.jobResults)
+      val wallMillis = (threadResults.map(_.endNanos).max - threadResults.map(_.startNanos).min) / 1000000d
+      val numFailures = jobResults.count(_.isFailed)
+      // Very short runs might not take any measurable time.
+      val jobsPerSecond = if (wallMillis > 0) Some((jobResults.size - numFailures) / (wallMillis / 1000)) else None
+      val latencies = new Statistics(jobResults.map(_.latencyMillis))
+      val optimizationMillis = new Statistics(jobResults.map(_.optimizationMillis))
+      if (baselineOptimizationMillis.isNaN) baselineOptimizationMillis = optimizationMillis.mean
+
+      val measurement = ValuesMeasurement.addTo(experiment, s"threads-$numThreads",
+        "threads" -> numThreads,
+        "jobs" -> jobResults.size,
+        "failures" -> numFailures,
+        "wallMillis" -> wallMillis,
+        "latencyP99" -> latencies.percentile(99),
+        "optimizationSlowdown" -> optimizationMillis.mean / baselineOptimizationMillis
+      )
+      jobsPerSecond.foreach(measurement.add("jobsPerSecond", _))
+      latencies.addTo(measurement, "latency_")
+      optimizationMillis.addTo(measurement, "optimization_")
+      val throughput = jobsPerSecond.map(value => f"$value%,.2f jobs/s").getOrElse("unknown jobs/s")
+      println(f"$numThreads%3d thread(s): $throughput, $numFailures failure(s), " +
+        f"latency p50=${latencies.median}%,.1f ms p95=${latencies.percentile(95)}%,.1f ms " +
+        f"p99=${latencies.percentile(99)}%,.1f ms, optimization mean=${optimizationMillis.mean}%,.1f ms " +
+        f"(x${optimizationMillis.mean / baselineOptimizationMillis}%.2f)")
+    }
+
+    ProfileDBHelper.store(experiment, configuration)
+  }
+
+}
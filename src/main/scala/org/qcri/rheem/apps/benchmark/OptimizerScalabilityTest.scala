@@ -1,8 +1,14 @@
 package org.qcri.rheem.apps.benchmark
 
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import java.lang.management.{ManagementFactory, MemoryType}
+
+import de.hpi.isg.profiledb.store.model.TimeMeasurement
+import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper, ValuesMeasurement}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+
 /**
   * This app provides scalability tests for Rheem's optimizer.
   */
@@ -21,6 +27,58 @@ object OptimizerScalabilityTest extends ExperimentDescriptor {
 
   override def version = "0.1.0"
 
+  /**
+    * Optimizer phases along with name fragments of the [[TimeMeasurement]] rounds that belong to them.
+    */
+  val phases = Seq(
+    "enumerationMillis" -> Seq("enumerat"),
+    "estimationMillis" -> Seq("cardinalit", "cost", "estimat"),
+    "channelConversionMillis" -> Seq("channel", "conversion")
+  )
+
+  /**
+    * Attributes the durations of the [[TimeMeasurement]] rounds to the [[phases]]: A round belongs to the phase whose
+    * name fragments its ID contains (ignoring the case) and is not descended into any further; otherwise, its
+    * sub-rounds are searched. A round that matches several phases is attributed only to the first of them. The time
+    * that is not attributed to any phase is reported as `unmatchedMillis`. Ambiguous rounds and phases without any
+    * round are reported on the console, as they hint at renamed rounds in Rheem.
+    *
+    * @param timeMeasurements the top-level [[TimeMeasurement]]s
+    * @return the phases along with their total durations in milliseconds, followed by `unmatchedMillis`
+    */
+  def collectPhaseTimes(timeMeasurements: Iterable[TimeMeasurement]): Seq[(String, Long)] = {
+    val phaseMillis = mutable.LinkedHashMap(phases.map { case (phase, _) => phase -> 0L }: _*)
+    val matchedPhases = mutable.Set[String]()
+    def attribute(round: TimeMeasurement): Unit = {
+      val id = round.getId.toLowerCase
+      phases.collect { case (phase, fragments) if fragments.exists(id.contains(_)) => phase } match {
+        case Seq() => round.getRounds.foreach(attribute)
+        case matches =>
+          if (matches.size > 1)
+            println(s"WARNING: Round ${round.getId} matches the phases ${matches.mkString(", ")}; counting it for ${matches.head}.")
+          phaseMillis(matches.head) += round.getMillis
+          matchedPhases += matches.head
+      }
+    }
+    timeMeasurements.foreach(attribute)
+    for (phase <- phaseMillis.keys if !matchedPhases.contains(phase)) println(s"WARNING: No round matches $phase.")
+    val unmatchedMillis = timeMeasurements.map(_.getMillis).sum - phaseMillis.values.sum
+    phaseMillis.toSeq :+ ("unmatchedMillis" -> unmatchedMillis)
+  }
+
+  /**
+    * Sums up the durations of the [[TimeMeasurement]] rounds whose IDs contain any of the given fragments (ignoring
+    * the case). A matching round is not descended into any further, so that nothing is counted twice.
+    *
+    * @param rounds    the [[TimeMeasurement]]s to search through
+    * @param fragments the lower-case ID fragments
+    * @return the total duration in milliseconds
+    */
+  def sumRoundTimes(rounds: Iterable[TimeMeasurement], fragments: Seq[String]): Long = rounds.map { round =>
+    val id = round.getId.toLowerCase
+    if (fragments.exists(fragment => id.contains(fragment))) round.getMillis else sumRoundTimes(round.getRounds, fragments)
+  }.sum
+
   /**
     * Main method to run this app.
     */
@@ -28,9 +86,8 @@ object OptimizerScalabilityTest extends ExperimentDescriptor {
     if (args.isEmpty) {
       println("Usage: <experiment descriptor> <plugins> <plan type> <plan type args>...")
       println("Plan types:")
-      println(" pipeline <pipeline length>")
-      println(" fanout <fanout degree>")
-      println(" tree <tree height>")
+      PlanGenerator.planTypeHelp.foreach(help => println(s" $help"))
+      sys.exit(1)
     }
 
     // Create the experiment.
@@ -43,16 +100,24 @@ object OptimizerScalabilityTest extends ExperimentDescriptor {
     // Create the planGenerator.
     val planType = args(2)
     experiment.getSubject.addConfiguration("planType", planType)
-    val planGenerator: PlanGenerator = planType match {
-      case "pipeline" => new PipelinePlanGenerator(args(3).toInt)
-      case "fanout" => new FanoutPlanGenerator(args(3).toInt)
-      case "tree" => new TreePlanGenerator(args(3).toInt)
-      case _ => sys.error(s"Unknown plan type: $planType")
-    }
+    experiment.getSubject.addConfiguration("planArgs", args.drop(3).mkString(" "))
+    val planGenerator = PlanGenerator.create(planType, args.drop(3))
 
     // Generate and execute the plan.
     val planTrigger = planGenerator.generatePlanTrigger(rheemContext, experiment)
+    val heapPools = ManagementFactory.getMemoryPoolMXBeans.filter(_.getType == MemoryType.HEAP)
+    heapPools.foreach(_.resetPeakUsage())
+    val startTime = System.currentTimeMillis
     planTrigger()
+    val wallTime = System.currentTimeMillis - startTime
+    val peakHeap = heapPools.map(_.getPeakUsage.getUsed).sum // upper bound, as the pools may peak at different times
+
+    // Break down the time measurements of the optimizer into its phases.
+    val phaseTimes = this.collectPhaseTimes(experiment.getMeasurements.collect { case time: TimeMeasurement => time })
+    val measurement = ValuesMeasurement.addTo(experiment, "optimizer", "wallTime" -> wallTime, "peakHeap" -> peakHeap)
+    for ((phase, millis) <- phaseTimes) measurement.add(phase, millis)
+    println(s"Optimized the plan in $wallTime ms with a peak heap of ${peakHeap >> 20} MiB: " +
+      phaseTimes.map { case (phase, millis) => s"$phase=$millis ms" }.mkString(", "))
 
     // Store the experiment.
     ProfileDBHelper.store(experiment, rheemContext.getConfiguration)
@@ -5,6 +5,8 @@ import org.qcri.rheem.api.{DataQuanta, PlanBuilder}
 import org.qcri.rheem.core.api.RheemContext
 import org.qcri.rheem.core.plan.rheemplan.RheemPlan
 
+import scala.util.Random
+
 /**
   * Utility to create random [[RheemPlan]]s.
   */
@@ -20,6 +22,48 @@ abstract class PlanGenerator {
 
 }
 
+/**
+  * Companion object for [[PlanGenerator]].
+  */
+object PlanGenerator {
+
+  /**
+    * Describes the plan types and their arguments for [[create]].
+    */
+  val planTypeHelp = Seq(
+    "pipeline <pipeline length>",
+    "fanout <fanout degree>",
+    "tree <tree height>",
+    "random <#operators> <seed>",
+    "star <#dimensions>",
+    "snowflake <#dimensions> <depth>",
+    "loops <nesting depth> <#iterations>",
+    "broadcasts <pipeline length> <#broadcasts per operator>",
+    "wordcount <input URL>"
+  )
+
+  /**
+    * Creates a [[PlanGenerator]].
+    *
+    * @param planType the plan type as described in [[planTypeHelp]]
+    * @param args     the arguments for the plan type
+    * @return the [[PlanGenerator]]
+    */
+  def create(planType: String, args: Seq[String]): PlanGenerator = planType match {
+    case "pipeline" => new PipelinePlanGenerator(args(0).toInt)
+    case "fanout" => new FanoutPlanGenerator(args(0).toInt)
+    case "tree" => new TreePlanGenerator(args(0).toInt)
+    case "random" => new RandomDagPlanGenerator(args(0).toInt, args(1).toLong)
+    case "star" => new SnowflakePlanGenerator(args(0).toInt, 1)
+    case "snowflake" => new SnowflakePlanGenerator(args(0).toInt, args(1).toInt)
+    case "loops" => new NestedLoopPlanGenerator(args(0).toInt, args(1).toInt)
+    case "broadcasts" => new BroadcastHeavyPlanGenerator(args(0).toInt, args(1).toInt)
+    case "wordcount" => new WordCountPlanGenerator(args(0))
+    case _ => sys.error(s"Unknown plan type: $planType")
+  }
+
+}
+
 class PipelinePlanGenerator(numOperators: Int) extends PlanGenerator {
 
   require(numOperators >= 2, "At least 2 operators are required for a pipeline.")
@@ -76,3 +120,181 @@ class TreePlanGenerator(treeHeight: Int) extends PlanGenerator {
     else createTree(planBuilder, height - 1).union(createTree(planBuilder, height - 1))
 
 }
+
+/**
+  * Creates random DAG-shaped [[RheemPlan]]s, which consist of sources, unary operators (maps and filters), and binary
+  * operators (unions and joins), whereby operators may also consume broadcasts. All operators without consumers are
+  * eventually unioned and collected.
+  *
+  * @param numOperators the number of operators to create (excluding the final unions)
+  * @param seed         seeds the plan shape
+  */
+class RandomDagPlanGenerator(numOperators: Int, seed: Long) extends PlanGenerator {
+
+  require(numOperators >= 1, "At least 1 operator is required for a DAG.")
+
+  override def generatePlanTrigger(rheemCtx: RheemContext, experiment: Experiment): () => Unit = {
+    val planBuilder = new PlanBuilder(rheemCtx, s"Generated random DAG ($numOperators OPs, seed $seed)")
+      .withExperiment(experiment)
+    val random = new Random(seed)
+    val operators = scala.collection.mutable.ArrayBuffer[DataQuanta[Int]]()
+    val unconsumed = scala.collection.mutable.LinkedHashSet[Int]()
+    def pick() = {
+      val index = random.nextInt(operators.size)
+      unconsumed -= index
+      operators(index)
+    }
+
+    for (i <- 0 until numOperators) {
+      val dice = random.nextDouble()
+      var operator =
+        if (operators.isEmpty || dice < .1) planBuilder.loadCollection(Seq(1, 2, 3)).withName(s"source $i")
+        else if (dice < .45) pick().map(i => i).withName(s"map $i")
+        else if (dice < .6) pick().filter(_ > 0).withName(s"filter $i")
+        else if (dice < .8) pick().union(pick()).withName(s"union $i")
+        else pick().join[Int, Int](identity, pick(), identity).withName(s"join $i").map(_.field0).withName(s"project $i")
+      if (operators.nonEmpty && random.nextDouble() < .1) {
+        operator = operator.map(i => i).withBroadcast(pick(), "broadcast").withName(s"broadcast consumer $i")
+      }
+      unconsumed += operators.size
+      operators += operator
+    }
+
+    val sink = unconsumed.toSeq.map(operators).reduce((dq1, dq2) => dq1.union(dq2).withName("final union"))
+    () => sink.collect()
+  }
+
+}
+
+/**
+  * Creates [[RheemPlan]]s that join a fact table with dimension tables, which in turn may be joined with further
+  * dimension tables, i.e., star-shaped plans (`depth` 1) or snowflake-shaped plans (`depth` > 1).
+  *
+  * @param numDimensions the number of dimension tables per (fact or dimension) table
+  * @param depth         the number of dimension table levels
+  */
+class SnowflakePlanGenerator(numDimensions: Int, depth: Int) extends PlanGenerator {
+
+  require(numDimensions >= 1, "At least 1 dimension is required.")
+  require(depth >= 1, "The depth must be >=1.")
+
+  override def generatePlanTrigger(rheemCtx: RheemContext, experiment: Experiment): () => Unit = {
+    val shape = if (depth == 1) "star" else "snowflake"
+    val planBuilder = new PlanBuilder(rheemCtx, s"Generated $shape ($numDimensions dimensions, depth $depth)")
+      .withExperiment(experiment)
+    val fact = createTable(planBuilder, "fact", depth)
+    () => fact.collect()
+  }
+
+  /**
+    * Creates a table and joins it with its dimension tables.
+    */
+  private def createTable(planBuilder: PlanBuilder, name: String, remainingDepth: Int): DataQuanta[Int] = {
+    var table = planBuilder.loadCollection(Seq(1, 2, 3)).withName(name)
+    if (remainingDepth > 0) {
+      for (i <- 1 to numDimensions) {
+        val dimension = createTable(planBuilder, s"$name.$i", remainingDepth - 1)
+        table = table.join[Int, Int](identity, dimension, identity).withName(s"join $name.$i").map(_.field0)
+          .withName(s"project $name.$i")
+      }
+    }
+    table
+  }
+
+}
+
+/**
+  * Creates [[RheemPlan]]s with nested loops that alternate between `repeat` and `doWhile` loops. The latter stop as
+  * soon as the looped value reaches `numIterations`.
+  *
+  * @param depth         the nesting depth of the loops
+  * @param numIterations the number of iterations of each loop
+  */
+class NestedLoopPlanGenerator(depth: Int, numIterations: Int) extends PlanGenerator {
+
+  require(depth >= 1, "The depth must be >=1.")
+  require(numIterations >= 1, "At least 1 iteration is required.")
+
+  override def generatePlanTrigger(rheemCtx: RheemContext, experiment: Experiment): () => Unit = {
+    val planBuilder = new PlanBuilder(rheemCtx, s"Generated nested loops (depth $depth, $numIterations iterations)")
+      .withExperiment(experiment)
+    val source = planBuilder.loadCollection(Seq(1)).withName("source")
+    val result = createLoop(source, depth)
+    () => result.collect()
+  }
+
+  /**
+    * Creates a loop around the given [[DataQuanta]] with further loops nested in its body.
+    */
+  private def createLoop(input: DataQuanta[Int], remainingDepth: Int): DataQuanta[Int] = {
+    def body(dq: DataQuanta[Int]) = {
+      val stepped = dq.map(_ + 1).withName(s"step (depth $remainingDepth)")
+      if (remainingDepth > 1) createLoop(stepped, remainingDepth - 1) else stepped
+    }
+    if (remainingDepth % 2 == 1) {
+      input.repeat(numIterations, body).withName(s"repeat (depth $remainingDepth)")
+    } else {
+      val _numIterations = numIterations
+      input.doWhile[Int](
+        (convergence: Iterable[Int]) => convergence.head >= _numIterations,
+        { dq =>
+          val next = body(dq)
+          (next, next.map(i => i).withName(s"convergence (depth $remainingDepth)"))
+        },
+        numIterations
+      ).withName(s"doWhile (depth $remainingDepth)")
+    }
+  }
+
+}
+
+/**
+  * Creates pipeline [[RheemPlan]]s, where each operator consumes broadcasts from several previous operators.
+  *
+  * @param numOperators          the number of operators in the pipeline
+  * @param broadcastsPerOperator the number of broadcasts per operator
+  */
+class BroadcastHeavyPlanGenerator(numOperators: Int, broadcastsPerOperator: Int) extends PlanGenerator {
+
+  require(numOperators >= 2, "At least 2 operators are required for a pipeline.")
+  require(broadcastsPerOperator >= 1, "At least 1 broadcast per operator is required.")
+
+  override def generatePlanTrigger(rheemCtx: RheemContext, experiment: Experiment): () => Unit = {
+    val planBuilder = new PlanBuilder(rheemCtx, s"Generated broadcast-heavy pipeline ($numOperators OPs, " +
+      s"$broadcastsPerOperator broadcasts each)")
+      .withExperiment(experiment)
+    val operators = scala.collection.mutable.ArrayBuffer[DataQuanta[Int]]()
+    operators += planBuilder.loadCollection(Seq(1)).withName("source")
+    for (i <- 1 until numOperators) {
+      var operator = operators.last.map(i => i).withName(s"intermediate $i")
+      for (j <- 1 to math.min(broadcastsPerOperator, operators.size)) {
+        operator = operator.withBroadcast(operators(operators.size - j), s"broadcast $j")
+      }
+      operators += operator
+    }
+    () => operators.last.collect()
+  }
+
+}
+
+/**
+  * Creates word count [[RheemPlan]]s, e.g., to run many small jobs over small files.
+  *
+  * @param inputUrl URL of the file whose words should be counted
+  */
+class WordCountPlanGenerator(inputUrl: String) extends PlanGenerator {
+
+  override def generatePlanTrigger(rheemCtx: RheemContext, experiment: Experiment): () => Unit = {
+    val planBuilder = new PlanBuilder(rheemCtx, s"Generated word count ($inputUrl)")
+      .withExperiment(experiment)
+      .withUdfJarsOf(this.getClass)
+    val wordCounts = planBuilder
+      .readTextFile(inputUrl).withName("Load file")
+      .flatMap(_.split("\\W+")).withName("Split words")
+      .filter(_.nonEmpty).withName("Filter empty words")
+      .map(word => (word.toLowerCase, 1)).withName("To lower case, add counter")
+      .reduceByKey(_._1, (c1, c2) => (c1._1, c1._2 + c2._2)).withName("Add counters")
+    () => wordCounts.collect()
+  }
+
+}
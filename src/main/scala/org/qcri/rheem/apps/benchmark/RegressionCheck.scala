@@ -0,0 +1,172 @@
+package org.qcri.rheem.apps.benchmark
+
+import java.io.File
+
+import de.hpi.isg.profiledb.store.model.{Experiment, TimeMeasurement}
+import org.qcri.rheem.apps.util.{ProfileDBHelper, ValuesMeasurement}
+import org.qcri.rheem.core.api.Configuration
+
+import scala.collection.JavaConversions._
+import scala.util.Random
+
+/**
+  * Compares the experiments in the ProfileDB (as specified via `rheem.apps.profiledb`) that are tagged as baseline
+  * with those tagged as candidate, e.g., before and after bumping the Rheem version. Experiments are compared only if
+  * they agree in their app, its version, and its configuration (see [[groupingKey]]). A group of candidate experiments regresses if its
+  * mean metric is worse than that of the baseline by more than a threshold and a one-sided permutation test deems
+  * this difference significant. If any group regresses, the exit code is `1`. Groups with too few runs to ever be
+  * significant are reported as such, e.g., a single run per side cannot go below a p-value of `0.5`.
+  */
+object RegressionCheck {
+
+  /**
+    * Describes what to compare among experiments.
+    *
+    * @param name             describes the metric
+    * @param extract          extracts the metric from an [[Experiment]], if it is present
+    * @param isHigherBetter   whether larger values are better, e.g., for throughputs
+    */
+  case class Metric(name: String, extract: Experiment => Option[Double], isHigherBetter: Boolean)
+
+  /**
+    * Parses a metric specification.
+    *
+    * @param spec `time` for the sum of all [[TimeMeasurement]]s, `time:<ID>` for a specific [[TimeMeasurement]],
+    *             `latency:<ID>:<key>` or `throughput:<ID>:<key>` for a value of a [[ValuesMeasurement]]
+    * @return the [[Metric]]
+    */
+  def parseMetric(spec: String): Metric = spec.split(':') match {
+    case Array("time") => Metric(spec, { experiment =>
+      val times = experiment.getMeasurements.collect { case time: TimeMeasurement => time.getMillis.toDouble }
+      if (times.isEmpty) None else Some(times.sum)
+    }, isHigherBetter = false)
+    case Array("time", id) => Metric(spec, { experiment =>
+      experiment.getMeasurements.collectFirst { case time: TimeMeasurement if time.getId == id => time.getMillis.toDouble }
+    }, isHigherBetter = false)
+    case Array(kind@("latency" | "throughput"), id, key) => Metric(spec, { experiment =>
+      experiment.getMeasurements.collectFirst {
+        case values: ValuesMeasurement if values.getId == id && values.get(key).isInstanceOf[Number] =>
+          values.get(key).asInstanceOf[Number].doubleValue
+      }
+    }, isHigherBetter = kind == "throughput")
+    case _ => throw new IllegalArgumentException(s"Illegal metric: $spec")
+  }
+
+  /**
+    * Determines the p-value of a one-sided permutation test for the hypothesis that the `candidate` sample has a larger
+    * mean than the `baseline` sample. All permutations are enumerated if feasible; otherwise, they are sampled.
+    *
+    * @return the p-value
+    */
+  def permutationTest(baseline: Seq[Double], candidate: Seq[Double], numSamples: Int = 10000, seed: Long = 42L): Double = {
+    val all = (baseline ++ candidate).toArray
+    val total = all.sum
+    val n = candidate.size
+    val observed = candidate.sum
+    def isAsExtreme(candidateSum: Double) = candidateSum / n - (total - candidateSum) / baseline.size >=
+      observed / n - (total - observed) / baseline.size - 1e-9
+
+    if (binomial(all.length, n) <= numSamples) {
+      val combinations = all.indices.combinations(n).toSeq
+      combinations.count(indices => isAsExtreme(indices.map(all(_)).sum)).toDouble / combinations.size
+    } else {
+      val random = new Random(seed)
+      val numAsExtreme = (1 to numSamples).count(_ => isAsExtreme(random.shuffle(all.toSeq).take(n).sum))
+      (numAsExtreme + 1d) / (numSamples + 1d)
+    }
+  }
+
+  private val experimentSpec = """exp\([^)]*\)\s*""".r
+
+  /**
+    * Describes a configuration, such that experiments with the same description are comparable. Experiment specs
+    * (see [[org.qcri.rheem.apps.util.Parameters.createExperiment]]) are left out of the values, because they contain
+    * the experiment IDs and tags that necessarily differ between baseline and candidate runs.
+    *
+    * @param configuration the configuration of an experiment's subject
+    * @return the description
+    */
+  def groupingKey(configuration: Map[String, Any]): String = configuration.toSeq.sortBy(_._1).map {
+    case (key, value: String) => (key, experimentSpec.replaceAllIn(value, "").trim)
+    case other => other
+  }.mkString(", ")
+
+  /**
+    * Determines the smallest p-value that [[permutationTest]] can yield for the given sample sizes.
+    *
+    * @return the smallest p-value
+    */
+  def minPValue(baselineSize: Int, candidateSize: Int, numSamples: Int = 10000): Double = {
+    val numCombinations = binomial(baselineSize + candidateSize, candidateSize)
+    if (numCombinations <= numSamples) 1 / numCombinations else 1d / (numSamples + 1)
+  }
+
+  /**
+    * Determines by how much the candidate is worse than the baseline relative to the baseline.
+    *
+    * @return the relative change or `None` if the baseline mean is `0`, such that there is no relative change
+    */
+  def relativeChange(baselineMean: Double, candidateMean: Double, isHigherBetter: Boolean): Option[Double] =
+    if (baselineMean == 0) None
+    else Some((if (isHigherBetter) -1 else 1) * (candidateMean - baselineMean) / math.abs(baselineMean))
+
+  private def binomial(n: Int, k: Int): Double = (1 to k).foldLeft(1d)((acc, i) => acc * (n - k + i) / i)
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 2) {
+      println("Usage: scala <main class> <baseline tag> <candidate tag> " +
+        "[<metric (time|time:<ID>|latency:<ID>:<key>|throughput:<ID>:<key>)> [<threshold> [<alpha>]]]")
+      sys.exit(1)
+    }
+    val (baselineTag, candidateTag) = (args(0), args(1))
+    val metric = parseMetric(if (args.length > 2) args(2) else "time")
+    val threshold = if (args.length > 3) args(3).toDouble else 0.05
+    val alpha = if (args.length > 4) args(4).toDouble else 0.05
+
+    val path = new Configuration().getStringProperty("rheem.apps.profiledb", null)
+    if (path == null) sys.error("No ProfileDB specified via rheem.apps.profiledb.")
+    val experiments = ProfileDBHelper.createProfileDB.load(new File(path))
+    println(s"Loaded ${experiments.size} experiments from $path.")
+
+    // Group the experiments by app, version, and configuration.
+    val groups = experiments.toSeq.groupBy { experiment =>
+      val subject = experiment.getSubject
+      (subject.getId, subject.getVersion, groupingKey(subject.getConfiguration.toMap))
+    }
+
+    var numRegressions, numTooSmall, numZeroBaselines = 0
+    for (((app, version, config), group) <- groups.toSeq.sortBy(_._1.toString())) {
+      def sample(tag: String) = group.filter(_.getTags.contains(tag)).flatMap(metric.extract(_))
+      val (baseline, candidate) = (sample(baselineTag), sample(candidateTag))
+      if (baseline.nonEmpty && candidate.nonEmpty) {
+        val (baselineMean, candidateMean) = (baseline.sum / baseline.size, candidate.sum / candidate.size)
+        val sign = if (metric.isHigherBetter) -1 else 1
+        val change = relativeChange(baselineMean, candidateMean, metric.isHigherBetter)
+        val pValue = permutationTest(baseline.map(_ * sign), candidate.map(_ * sign))
+        // Without a relative change, the threshold cannot be applied.
+        val isRegression = change.exists(_ > threshold) && pValue < alpha
+        if (isRegression) numRegressions += 1
+        if (change.isEmpty) numZeroBaselines += 1
+        val isTooSmall = minPValue(baseline.size, candidate.size) >= alpha
+        if (isTooSmall) numTooSmall += 1
+        val verdict =
+          if (isRegression) "REGRESSION"
+          else if (change.isEmpty) "ZERO BASE"
+          else if (isTooSmall) "TOO FEW"
+          else "ok"
+        val formattedChange = change.map(c => f"${c * 100}%+.1f%% worse").getOrElse("no relative change")
+        println(f"$verdict%-10s $app $version [$config]: " +
+          f"${metric.name} $baselineMean%,.2f (n=${baseline.size}) -> $candidateMean%,.2f (n=${candidate.size}), " +
+          f"$formattedChange, p=$pValue%.4f")
+      }
+    }
+
+    println(s"Found $numRegressions regression(s) among ${groups.size} group(s).")
+    if (numTooSmall > 0) println(s"WARNING: $numTooSmall group(s) have too few runs to reach a p-value below $alpha. " +
+      s"Their regressions cannot be detected.")
+    if (numZeroBaselines > 0) println(s"WARNING: $numZeroBaselines group(s) have a baseline mean of 0, so that the " +
+      s"threshold cannot be applied to them. Consider a metric with a larger magnitude.")
+    if (numRegressions > 0) sys.exit(1)
+  }
+
+}
@@ -0,0 +1,169 @@
+package org.qcri.rheem.apps.crocopr
+
+import org.qcri.rheem.api._
+import org.qcri.rheem.api.graph._
+import org.qcri.rheem.apps.util.Instrumentation
+import org.qcri.rheem.basic.data.{Tuple2 => RheemTuple2}
+import org.qcri.rheem.core.function.ExecutionContext
+import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
+import org.qcri.rheem.core.util.RheemCollections
+
+/**
+  * PageRank on top of Rheem's basic operators that, unlike the built-in PageRank operator, stops iterating as soon as
+  * the ranks have converged.
+  * <p>In the delta variant, each vertex does not send its full rank to its neighbors but only the change of its rank.
+  * The vertex accumulates its changes until their sum exceeds `epsilon` and then sends that sum at once. Vertices in
+  * converged regions of the graph hence stop producing messages, so that later iterations become cheaper. As no change
+  * is dropped, the ranks converge to those of the non-delta variant up to the changes that are still pending in the
+  * end, which are at most `epsilon` per vertex.</p>
+  * <p>Vertices without outgoing edges do not pass on their rank mass, i.e., it is not redistributed over all vertices.
+  * The ranks hence sum up to less than `1` on graphs with such dangling vertices, and the ranks and residuals are not
+  * comparable with those of a standard PageRank that redistributes the dangling mass.</p>
+  *
+  * @param maxIterations upper bound for the number of iterations
+  * @param tolerance     stop as soon as the L1 change of the ranks within an iteration falls below this value
+  * @param isDelta       whether to propagate rank deltas rather than ranks
+  * @param epsilon       in the delta variant, vertices whose pending rank change is at most this value do not send it
+  * @param dampingFactor the PageRank damping factor
+  */
+class ConvergentPageRank(maxIterations: Int,
+                         tolerance: Double,
+                         isDelta: Boolean = false,
+                         epsilon: Double = 0d,
+                         dampingFactor: Double = 0.85) {
+
+  /**
+    * Runs the PageRank.
+    *
+    * @param edges    the edges of the graph
+    * @param vertices the IDs of all vertices in the graph
+    * @return [[RankState]]s after the last iteration
+    */
+  def apply(edges: DataQuanta[Edge], vertices: DataQuanta[Long]): DataQuanta[RankState] = {
+    val _isDelta = isDelta
+    val _epsilon = epsilon
+    val _tolerance = tolerance
+    val _maxIterations = maxIterations
+
+    // Name the instrumented operators, so that their measurements can be matched.
+    val (sendRankMessages, addUpMessages, updateRanks) = ("Send rank messages", "Add up messages", "Update ranks")
+
+    val adjacencyLists = edges
+      .map(edge => (edge.field0.longValue, Array(edge.field1.longValue))).withName("Prepare adjacency lists")
+      .reduceByKey(_._1, (al1, al2) => (al1._1, al1._2 ++ al2._2)).withName("Create adjacency lists")
+
+    val numVertices = vertices.count.withName("Count vertices")
+
+    val initialRanks = vertices
+      .mapJava(new CreateInitialRankStates("numVertices", isDelta, dampingFactor))
+      .withBroadcast(numVertices, "numVertices").withName("Create initial ranks")
+
+    initialRanks.doWhile[(Double, Int)](
+      { residuals =>
+        // Stop when there is nothing to iterate on, when the ranks have converged, or when we are out of iterations.
+        residuals.headOption.forall { case (residual, iteration) =>
+          residual < _tolerance || iteration + 1 >= _maxIterations
+        }
+      }, { ranks =>
+        val messages = ranks
+          .filter(rank => !_isDelta || math.abs(rank.pending) > _epsilon).withName("Filter active vertices")
+          .join[(Long, Array[Long]), Long](_.vertexId, adjacencyLists, _._1).withName("Join ranks with adjacency lists")
+          .flatMap(Instrumentation.wrap(sendRankMessages, { join: RheemTuple2[RankState, (Long, Array[Long])] =>
+            val targets = join.field1._2
+            val share = (if (_isDelta) join.field0.pending else join.field0.rank) / targets.length
+            targets.map(target => (target, share, 0d, 0d)).toSeq
+          })).withName(sendRankMessages)
+
+        // Vertices that have just sent their pending change start over, all others keep accumulating it.
+        val newRanks = ranks
+          .map { rank =>
+            val pending = if (_isDelta && math.abs(rank.pending) <= _epsilon) rank.pending else 0d
+            (rank.vertexId, 0d, rank.rank, pending)
+          }.withName("Keep previous ranks")
+          .union(messages).withName("Union previous ranks and messages")
+          .reduceByKey(
+            Instrumentation.wrapKey(addUpMessages, (_: (Long, Double, Double, Double))._1),
+            Instrumentation.wrap2(addUpMessages, (m1: (Long, Double, Double, Double), m2: (Long, Double, Double, Double)) =>
+              (m1._1, m1._2 + m2._2, m1._3 + m2._3, m1._4 + m2._4))
+          ).withName(addUpMessages)
+          .mapJava(Instrumentation.wrapJava(updateRanks, new UpdateRankState("numVertices", isDelta, dampingFactor)))
+          .withBroadcast(numVertices, "numVertices").withName(updateRanks)
+
+        val residual = newRanks
+          .map(rank => (math.abs(rank.delta), rank.iteration)).withName("Extract rank changes")
+          .reduce((r1, r2) => (r1._1 + r2._1, math.max(r1._2, r2._2))).withName("Calculate residual")
+
+        (newRanks, residual)
+      },
+      numExpectedIterations = maxIterations
+    ).withName("PageRank loop")
+  }
+
+}
+
+/**
+  * Describes a vertex during the PageRank iterations.
+  *
+  * @param vertexId  the ID of the vertex
+  * @param rank      the current rank of the vertex
+  * @param delta     the change of the rank in the last iteration
+  * @param pending   in the delta variant, the sum of the rank changes that have not been sent yet; `0` otherwise
+  * @param iteration the iteration that produced this instance, starting at `0`; `-1` for initial ranks
+  */
+case class RankState(vertexId: Long, rank: Double, delta: Double, pending: Double, iteration: Int)
+
+/**
+  * Creates the initial [[RankState]]s.
+  *
+  * @param numVerticesBroadcast name of the broadcast with the number of vertices
+  * @param isDelta              whether the ranks are used for the delta variant of the PageRank
+  * @param dampingFactor        the PageRank damping factor
+  */
+class CreateInitialRankStates(numVerticesBroadcast: String, isDelta: Boolean, dampingFactor: Double)
+  extends ExtendedSerializableFunction[Long, RankState] {
+
+  private var initialRank: Double = _
+
+  override def open(executionCtx: ExecutionContext): Unit = {
+    val numVertices = RheemCollections.getSingle(executionCtx.getBroadcast[Long](numVerticesBroadcast))
+    // In the delta variant, the initial delta is the teleport probability, which is then propagated over the edges.
+    this.initialRank = (if (isDelta) 1 - dampingFactor else 1d) / numVertices
+  }
+
+  override def apply(vertexId: Long) =
+    RankState(vertexId, this.initialRank, this.initialRank, if (isDelta) this.initialRank else 0d, -1)
+
+}
+
+/**
+  * Calculates new [[RankState]]s from `(vertex ID, sum of messages, previous rank, unsent rank change)` tuples.
+  *
+  * @param numVerticesBroadcast name of the broadcast with the number of vertices
+  * @param isDelta              whether the messages are rank deltas
+  * @param dampingFactor        the PageRank damping factor
+  */
+class UpdateRankState(numVerticesBroadcast: String, isDelta: Boolean, dampingFactor: Double)
+  extends ExtendedSerializableFunction[(Long, Double, Double, Double), RankState] {
+
+  private var teleportRank: Double = _
+
+  private var iteration: Int = _
+
+  override def open(executionCtx: ExecutionContext): Unit = {
+    val numVertices = RheemCollections.getSingle(executionCtx.getBroadcast[Long](numVerticesBroadcast))
+    this.teleportRank = (1 - dampingFactor) / numVertices
+    this.iteration = executionCtx.getCurrentIteration
+  }
+
+  override def apply(messages: (Long, Double, Double, Double)): RankState = {
+    val (vertexId, messageSum, previousRank, unsent) = messages
+    if (isDelta) {
+      val delta = dampingFactor * messageSum
+      RankState(vertexId, previousRank + delta, delta, unsent + delta, this.iteration)
+    } else {
+      val rank = this.teleportRank + dampingFactor * messageSum
+      RankState(vertexId, rank, rank - previousRank, 0d, this.iteration)
+    }
+  }
+
+}
@@ -3,8 +3,7 @@ package org.qcri.rheem.apps.crocopr
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api.graph._
 import org.qcri.rheem.api.{DataQuanta, PlanBuilder}
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper, StdOut}
-import org.qcri.rheem.core.api.exception.RheemException
+import org.qcri.rheem.apps.util.{AppsKryo, ExperimentDescriptor, Instrumentation, Parameters, ProfileDBHelper, StdOut, ValuesMeasurement}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.plugin.Plugin
 import org.qcri.rheem.core.util.fs.FileSystems
@@ -14,15 +13,33 @@ import org.qcri.rheem.core.util.fs.FileSystems
   */
 class CrocoPR(plugins: Plugin*) {
 
+  /**
+    * A vertex ID along with the resource name of the vertex.
+    */
+  private type VertexId = org.qcri.rheem.basic.data.Tuple2[Vertex, String]
+
   /**
     * Executes the cross-community PageRank on the given files.
     *
-    * @param inputUrl1 URL to the first RDF N3 file
-    * @param inputUrl2 URL to the second RDF N3 file
+    * @param inputUrl1     URL to the first RDF N3 file
+    * @param inputUrl2     URL to the second RDF N3 file
+    * @param numIterations the number of PageRank iterations or, if a `tolerance` is given, the maximum thereof
+    * @param tolerance     if given, iterate only until the L1 change of the page ranks falls below this value
+    * @param deltaEpsilon  if given, propagate rank changes once they add up to more than this value (requires a
+    *                      `tolerance`)
+    * @param isHashIds     whether to derive the vertex IDs by hashing the resource names (see [[LinkParser.hash]])
+    *                      rather than by assigning IDs and joining them with the links
     * @return the page ranks
     */
-  def apply(inputUrl1: String, inputUrl2: String, numIterations: Int)
-           (implicit experiment: Experiment, configuration: Configuration) = {
+  def apply(inputUrl1: String,
+            inputUrl2: String,
+            numIterations: Int,
+            tolerance: Option[Double] = None,
+            deltaEpsilon: Option[Double] = None,
+            isHashIds: Boolean = false)
+           (implicit experiment: Experiment, configuration: Configuration): Iterable[(String, java.lang.Float)] = {
+    require(deltaEpsilon.isEmpty || tolerance.isDefined, "The delta PageRank requires a tolerance.")
+
     // Initialize.
     val rheemCtx = new RheemContext(configuration)
     plugins.foreach(rheemCtx.register)
@@ -41,31 +58,74 @@ class CrocoPR(plugins: Plugin*) {
       .distinct.withName("Distinct links")
 
     // Create vertex IDs.
-    val vertexIds = allLinks
+    val vertices = allLinks
       .flatMap(link => Seq(link._1, link._2)).withName("Flatten vertices")
       .distinct.withName("Distinct vertices")
-      .zipWithId.withName("Add vertex IDs")
 
+    val (vertexIds, edges) = if (isHashIds) {
+      // Hashing the resource names saves us from joining the links with the vertex IDs.
+      val vertexIds = vertices
+        .map(vertex => new VertexId(LinkParser.hash(vertex), vertex)).withName("Hash vertex IDs")
+      val edges = allLinks
+        .map(link => new Edge(LinkParser.hash(link._1), LinkParser.hash(link._2))).withName("Hash link vertex IDs")
+      (vertexIds, edges)
+    } else {
+      val vertexIds = vertices.zipWithId.withName("Add vertex IDs")
+      val edges = allLinks
+        .join[VertexId, String](_._1, vertexIds, _.field1).withName("Join source vertex IDs")
+        .map { linkAndVertexId =>
+          (linkAndVertexId.field1.field0, linkAndVertexId.field0._2)
+        }.withName("Set source vertex ID")
+        .join[VertexId, String](_._2, vertexIds, _.field1).withName("Join target vertex IDs")
+        .map(linkAndVertexId => new Edge(linkAndVertexId.field0._1, linkAndVertexId.field1.field0)).withName("Set target vertex ID")
+      (vertexIds, edges)
+    }
 
-    type VertexId = org.qcri.rheem.basic.data.Tuple2[Vertex, String]
-    val edges = allLinks
-      .join[VertexId, String](_._1, vertexIds, _.field1).withName("Join source vertex IDs")
-      .map { linkAndVertexId =>
-        (linkAndVertexId.field1.field0, linkAndVertexId.field0._2)
-      }.withName("Set source vertex ID")
-      .join[VertexId, String](_._2, vertexIds, _.field1).withName("Join target vertex IDs")
-      .map(linkAndVertexId => new Edge(linkAndVertexId.field0._1, linkAndVertexId.field1.field0)).withName("Set target vertex ID")
+    if (tolerance.isDefined) {
+      this.runConvergentPageRank(edges, vertexIds, numIterations, tolerance.get, deltaEpsilon)
+    } else {
+      // Run the PageRank.
+      val pageRanks = edges.pageRank(numIterations)
+
+      // Make the page ranks readable.
+      pageRanks
+        .map(identity).withName("Hotfix")
+        .join[VertexId, Long](_.field0, vertexIds, _.field0).withName("Join page ranks with vertex IDs")
+        .map(joinTuple => (joinTuple.field1.field1, joinTuple.field0.field1)).withName("Make page ranks readable")
+        .collect()
+    }
 
-    // Run the PageRank.
-    val pageRanks = edges.pageRank(numIterations)
+  }
 
-    // Make the page ranks readable.
-    pageRanks
-      .map(identity).withName("Hotfix")
-      .join[VertexId, Long](_.field0, vertexIds, _.field0).withName("Join page ranks with vertex IDs")
-      .map(joinTuple => (joinTuple.field1.field1, joinTuple.field0.field1)).withName("Make page ranks readable")
+  /**
+    * Runs the [[ConvergentPageRank]] and records the number of iterations and the final residual.
+    *
+    * @param edges         the edges of the link graph
+    * @param vertexIds     the vertex IDs with their resource names
+    * @param maxIterations the maximum number of iterations
+    * @param tolerance     the L1 tolerance to stop iterating
+    * @param deltaEpsilon  if given, run the delta PageRank with this threshold
+    * @return the page ranks
+    */
+  private def runConvergentPageRank(edges: DataQuanta[Edge],
+                                    vertexIds: DataQuanta[VertexId],
+                                    maxIterations: Int,
+                                    tolerance: Double,
+                                    deltaEpsilon: Option[Double])
+                                   (implicit experiment: Experiment): Iterable[(String, java.lang.Float)] = {
+    val pageRank = new ConvergentPageRank(maxIterations, tolerance, deltaEpsilon.isDefined, deltaEpsilon.getOrElse(0d))
+    val rankStates = pageRank(edges, vertexIds.map(_.field0.longValue).withName("Extract vertex IDs"))
+      .join[VertexId, Long](_.vertexId, vertexIds, _.field0.longValue)
+      .withName("Join page ranks with vertex IDs")
+      .map(joinTuple => (joinTuple.field1.field1, joinTuple.field0)).withName("Make page ranks readable")
       .collect()
 
+    // The rank states have been collected anyway, so we can derive the loop statistics from them.
+    val iterations = if (rankStates.isEmpty) 0 else rankStates.map(_._2.iteration).max + 1
+    val residual = rankStates.map(rankState => math.abs(rankState._2.delta)).sum
+    ValuesMeasurement.addTo(experiment, "pagerank", "iterations" -> iterations, "residual" -> residual)
+
+    rankStates.map(rankState => (rankState._1, java.lang.Float.valueOf(rankState._2.rank.toFloat)))
   }
 
   /**
@@ -76,16 +136,9 @@ class CrocoPR(plugins: Plugin*) {
     * @return [[DataQuanta]] representing the parsed file
     */
   def readLinks(inputUrl: String)(implicit planBuilder: PlanBuilder): DataQuanta[(String, String)] = {
-    val linkPattern =
-      """<http://dbpedia.org/resource/([^>]+)>\s+<http://dbpedia.org/ontology/wikiPageWikiLink>\s+<http://dbpedia.org/resource/([^>]+)>\s+\.""".r
-
     planBuilder
       .readTextFile(inputUrl).withName(s"Load $inputUrl")
-      .filter(!_.startsWith("#")).withName("Filter comments")
-      .map {
-        case linkPattern(source, target) => (source, target)
-        case str => throw new RheemException(s"Cannot parse $str.")
-      }.withName("Parse lines")
+      .flatMapJava(new LinkParser).withName("Parse lines")
   }
 
 }
@@ -100,10 +153,12 @@ object CrocoPR extends ExperimentDescriptor {
   def main(args: Array[String]) {
     // Parse parameters.
     if (args.isEmpty) {
-      sys.error(s"Usage: <main class> ${Parameters.experimentHelp} <plugin>(,<plugin>)* <input URL1> <input URL2> <#iterations>")
+      sys.error(s"Usage: <main class> ${Parameters.experimentHelp} <plugin>(,<plugin>)* <input URL1> <input URL2> <#iterations> " +
+        s"[fixed|tolerance <L1 tolerance>|delta <L1 tolerance> <epsilon>]")
       sys.exit(1)
     }
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     implicit val experiment = Parameters.createExperiment(args(0), this)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
@@ -113,18 +168,32 @@ object CrocoPR extends ExperimentDescriptor {
     experiment.getSubject.addConfiguration("input2", inputUrl2)
     val numIterations = args(4).toInt
     experiment.getSubject.addConfiguration("iterations", numIterations)
+    val mode = if (args.length > 5) args(5) else "fixed"
+    experiment.getSubject.addConfiguration("mode", mode)
+    val (tolerance, deltaEpsilon) = mode match {
+      case "fixed" => (None, None)
+      case "tolerance" => (Some(args(6).toDouble), None)
+      case "delta" => (Some(args(6).toDouble), Some(args(7).toDouble))
+      case other => throw new IllegalArgumentException(s"Unknown PageRank mode: $other")
+    }
+    tolerance.foreach(experiment.getSubject.addConfiguration("tolerance", _))
+    deltaEpsilon.foreach(experiment.getSubject.addConfiguration("epsilon", _))
+    val isHashIds = configuration.getStringProperty("rheem.apps.crocopr.hashids", "false").toBoolean
+    experiment.getSubject.addConfiguration("vertexIds", if (isHashIds) "hash" else "zip")
 
     // Prepare the PageRank.
+    Instrumentation.start(configuration)
     val pageRank = new CrocoPR(plugins: _*)
 
     // Run the PageRank.
-    val pageRanks = pageRank(inputUrl1, inputUrl2, numIterations).toSeq.sortBy(-_._2)
+    val pageRanks = pageRank(inputUrl1, inputUrl2, numIterations, tolerance, deltaEpsilon, isHashIds).toSeq.sortBy(-_._2)
 
     // Store experiment data.
     val inputFileSize1 = FileSystems.getFileSize(inputUrl1)
     if (inputFileSize1.isPresent) experiment.getSubject.addConfiguration("inputSize1", inputFileSize1.getAsLong)
     val inputFileSize2 = FileSystems.getFileSize(inputUrl2)
     if (inputFileSize2.isPresent) experiment.getSubject.addConfiguration("inputSize2", inputFileSize2.getAsLong)
+    Instrumentation.stop(experiment)
     ProfileDBHelper.store(experiment, configuration)
 
     // Print the result.
@@ -0,0 +1,120 @@
+package org.qcri.rheem.apps.crocopr
+
+import java.util
+
+import org.qcri.rheem.core.api.exception.RheemException
+import org.qcri.rheem.core.function.FunctionDescriptor.SerializableFunction
+
+/**
+  * Hand-written parser for DBpedia page link N-Triples of the form
+  * {{{
+  * <http://dbpedia.org/resource/A> <http://dbpedia.org/ontology/wikiPageWikiLink> <http://dbpedia.org/resource/B> .
+  * }}}
+  * It scans each line exactly once, compares the IRI prefixes and the predicate in place, and slices out only the
+  * resource names. Comment and blank lines are skipped, so that no separate filter is required. Apart from that, it
+  * is as strict as a full match against the pattern `<subject>\s+<predicate>\s+<object>\s+\.`, except that it also
+  * accepts leading and trailing whitespace.
+  */
+class LinkParser extends SerializableFunction[String, java.lang.Iterable[(String, String)]] {
+
+  import LinkParser._
+
+  override def apply(line: String): java.lang.Iterable[(String, String)] = {
+    val start = skipWhitespace(line, 0)
+    if (start == line.length || line.charAt(start) == '#') return util.Collections.emptyList()
+
+    // Subject
+    val subjectEnd = parseResource(line, start)
+    // Predicate
+    var pos = skipRequiredWhitespace(line, subjectEnd + 1)
+    if (!line.startsWith(predicate, pos)) throw new RheemException(s"Cannot parse $line.")
+    pos += predicate.length
+    // Object
+    val objectStart = skipRequiredWhitespace(line, pos)
+    val objectEnd = parseResource(line, objectStart)
+    pos = skipRequiredWhitespace(line, objectEnd + 1)
+    if (pos >= line.length || line.charAt(pos) != '.') throw new RheemException(s"Cannot parse $line.")
+    // Nothing but whitespace may follow the dot.
+    if (skipWhitespace(line, pos + 1) != line.length) throw new RheemException(s"Cannot parse $line.")
+
+    util.Collections.singletonList((
+      line.substring(start + resourcePrefix.length, subjectEnd),
+      line.substring(objectStart + resourcePrefix.length, objectEnd)
+    ))
+  }
+
+}
+
+/**
+  * Companion object for [[LinkParser]].
+  */
+object LinkParser {
+
+  /**
+    * Prefix of DBpedia resource IRIs, including the opening angle bracket.
+    */
+  val resourcePrefix = "<http://dbpedia.org/resource/"
+
+  /**
+    * The page link predicate.
+    */
+  val predicate = "<http://dbpedia.org/ontology/wikiPageWikiLink>"
+
+  /**
+    * Parses a resource IRI.
+    *
+    * @param line  the line to parse
+    * @param start the position of the opening angle bracket
+    * @return the position of the closing angle bracket
+    */
+  private def parseResource(line: String, start: Int): Int = {
+    if (!line.startsWith(resourcePrefix, start)) throw new RheemException(s"Cannot parse $line.")
+    val end = line.indexOf('>', start + resourcePrefix.length)
+    if (end == -1 || end == start + resourcePrefix.length) throw new RheemException(s"Cannot parse $line.")
+    end
+  }
+
+  /**
+    * Finds the next non-whitespace character.
+    *
+    * @param line the line to scan
+    * @param pos  the position to start the scan at
+    * @return the position of the next non-whitespace character or the line length
+    */
+  private def skipWhitespace(line: String, pos: Int): Int = {
+    var i = pos
+    while (i < line.length && Character.isWhitespace(line.charAt(i))) i += 1
+    i
+  }
+
+  /**
+    * Like [[skipWhitespace]], but requires at least one whitespace character.
+    *
+    * @param line the line to scan
+    * @param pos  the position to start the scan at
+    * @return the position of the next non-whitespace character or the line length
+    */
+  private def skipRequiredWhitespace(line: String, pos: Int): Int = {
+    val end = skipWhitespace(line, pos)
+    if (end == pos) throw new RheemException(s"Cannot parse $line.")
+    end
+  }
+
+  /**
+    * Hashes a resource name to a 64-bit ID using FNV-1a.
+    *
+    * @param name the resource name
+    * @return the ID
+    */
+  def hash(name: String): Long = {
+    var hash = 0xcbf29ce484222325L
+    var i = 0
+    while (i < name.length) {
+      hash ^= name.charAt(i)
+      hash *= 0x100000001b3L
+      i += 1
+    }
+    hash
+  }
+
+}
@@ -0,0 +1,43 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+/**
+  * Generates points around Gaussian clusters as lines of comma-separated coordinates, e.g., for
+  * [[org.qcri.rheem.apps.kmeans.Kmeans]], which reads the first two coordinates.
+  *
+  * @param numClusters the number of clusters
+  * @param dimensions  the number of coordinates per point
+  * @param stddev      the standard deviation of the points around their cluster centers
+  * @param seed        determines the cluster centers
+  */
+class ClusteredPointsGenerator(val numClusters: Int, val dimensions: Int, val stddev: Double, seed: Long)
+  extends DataGenerator {
+
+  require(numClusters > 0 && dimensions > 0, "Need at least one cluster and one dimension.")
+
+  /**
+    * The cluster centers, drawn uniformly from `[-10, 10]^dimensions`, stored one after another.
+    */
+  val centers: Array[Double] = {
+    val random = new SplittableRandom(seed)
+    Array.fill(numClusters * dimensions)(random.nextDouble(-10, 10))
+  }
+
+  override def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int,
+                             out: java.lang.StringBuilder): Unit = {
+    var record = 0
+    while (record < numRecords) {
+      val offset = random.nextInt(numClusters) * dimensions
+      var dimension = 0
+      while (dimension < dimensions) {
+        if (dimension > 0) out.append(',')
+        DataGenerator.appendFixed(out, centers(offset + dimension) + stddev * DataGenerator.nextGaussian(random), 5)
+        dimension += 1
+      }
+      out.append('\n')
+      record += 1
+    }
+  }
+
+}
@@ -0,0 +1,213 @@
+package org.qcri.rheem.apps.datagen
+
+import java.io.{BufferedOutputStream, OutputStream}
+import java.nio.charset.StandardCharsets
+import java.util.SplittableRandom
+
+import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.core.util.fs.FileSystems
+
+import scala.collection.parallel.ForkJoinTaskSupport
+
+/**
+  * Generates synthetic text data line by line. The lines are created in chunks on several cores. Each chunk has its
+  * own random number generator that is derived from the seed and the chunk index, so that the output depends only on
+  * the seed and the requested size but not on the parallelism.
+  */
+abstract class DataGenerator {
+
+  /**
+    * Appends lines, each terminated by `\n`, to a [[java.lang.StringBuilder]].
+    *
+    * @param random      the random number generator for the chunk
+    * @param firstRecord the index of the first line to generate
+    * @param numRecords  the number of lines to generate
+    * @param out         collects the lines
+    */
+  def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int, out: java.lang.StringBuilder): Unit
+
+}
+
+/**
+  * Companion object for [[DataGenerator]] that also runs the generators.
+  */
+object DataGenerator {
+
+  /**
+    * The number of lines that are generated at once.
+    */
+  val recordsPerChunk = 10000
+
+  /**
+    * Describes how much data to generate.
+    *
+    * @param numRecords the number of lines or `-1`
+    * @param numBytes   the number of bytes or `-1`; the last line is completed nevertheless
+    */
+  case class OutputSize(numRecords: Long, numBytes: Long)
+
+  private val byteSizePattern = """(?i)(\d+)([kmg]?)b""".r
+
+  /**
+    * Parses an [[OutputSize]].
+    *
+    * @param spec either a number of lines, such as `1000000`, or a number of bytes, such as `512mb`
+    * @return the [[OutputSize]]
+    */
+  def parseSize(spec: String): OutputSize = spec match {
+    case byteSizePattern(number, unit) =>
+      val shift = unit.toLowerCase match {
+        case "" => 0
+        case "k" => 10
+        case "m" => 20
+        case "g" => 30
+      }
+      OutputSize(-1, number.toLong << shift)
+    case _ => OutputSize(spec.toLong, -1)
+  }
+
+  /**
+    * Provides the random number generator for a chunk.
+    */
+  def createRandom(seed: Long, chunk: Long): SplittableRandom = new SplittableRandom(seed * 1000003L + chunk)
+
+  /**
+    * Draws from the standard normal distribution via the Box-Muller transform, as [[SplittableRandom]] does not
+    * provide Gaussians.
+    */
+  def nextGaussian(random: SplittableRandom): Double =
+    math.sqrt(-2 * math.log(1 - random.nextDouble())) * math.cos(2 * math.Pi * random.nextDouble())
+
+  /**
+    * Appends a number with a fixed number of decimals, which is much cheaper than `String.format` and does not
+    * depend on the locale.
+    */
+  def appendFixed(out: java.lang.StringBuilder, value: Double, decimals: Int): Unit = {
+    val scale = math.pow(10, decimals).toLong
+    val scaled = math.round(math.abs(value) * scale)
+    if (value < 0 && scaled != 0) out.append('-')
+    out.append(scaled / scale)
+    if (decimals > 0) {
+      out.append('.')
+      val fraction = java.lang.Long.toString(scaled % scale)
+      var i = fraction.length
+      while (i < decimals) {
+        out.append('0')
+        i += 1
+      }
+      out.append(fraction)
+    }
+  }
+
+  /**
+    * Writes the output of a [[DataGenerator]] to a file.
+    *
+    * @param generator   the [[DataGenerator]]
+    * @param url         URL of the file
+    * @param size        the [[OutputSize]]
+    * @param seed        the seed
+    * @param parallelism the number of cores to use
+    * @return the number of written lines and bytes
+    */
+  def write(generator: DataGenerator, url: String, size: OutputSize, seed: Long, parallelism: Int): (Long, Long) = {
+    val taskSupport = new ForkJoinTaskSupport(new scala.concurrent.forkjoin.ForkJoinPool(parallelism))
+    val out: OutputStream = new BufferedOutputStream(FileSystems.requireFileSystem(url).create(url, true), 1 << 20)
+    var (numWrittenRecords, numWrittenBytes) = (0L, 0L)
+    try {
+      var nextChunk = 0L
+      var isDone = false
+      while (!isDone) {
+        // Generate a batch of chunks in parallel and write them in order.
+        val batch = (nextChunk until nextChunk + 2 * parallelism).par
+        batch.tasksupport = taskSupport
+        val texts = batch.map { chunk =>
+          val firstRecord = chunk * recordsPerChunk
+          val numRecords =
+            if (size.numRecords < 0) recordsPerChunk
+            else math.max(0L, math.min(recordsPerChunk.toLong, size.numRecords - firstRecord)).toInt
+          val text = new java.lang.StringBuilder(64 * numRecords)
+          generator.generateChunk(createRandom(seed, chunk), firstRecord, numRecords, text)
+          text.toString
+        }.seq
+        nextChunk += batch.size
+
+        for (text <- texts; if !isDone) {
+          val numBytesToWrite =
+            if (size.numBytes < 0 || numWrittenBytes + text.length < size.numBytes) text.length
+            else text.indexOf('\n', math.max(0L, size.numBytes - numWrittenBytes - 1).toInt) + 1
+          // The generators produce ASCII, so that characters and bytes coincide.
+          out.write(text.substring(0, numBytesToWrite).getBytes(StandardCharsets.US_ASCII))
+          numWrittenBytes += numBytesToWrite
+          numWrittenRecords += text.substring(0, numBytesToWrite).count(_ == '\n')
+          isDone = text.isEmpty || numBytesToWrite < text.length ||
+            (size.numBytes >= 0 && numWrittenBytes >= size.numBytes)
+        }
+      }
+    } finally {
+      out.close()
+      taskSupport.environment.shutdown()
+    }
+    (numWrittenRecords, numWrittenBytes)
+  }
+
+  def main(args: Array[String]): Unit = {
+    if (args.length < 4) {
+      println("Usage: scala <main class> <generator> <output URL> <size (#lines|<n>[k|m|g]b)> <seed> <generator args>*")
+      println("Generators:")
+      println(" points <#clusters> [<#dimensions> [<standard deviation>]]")
+      println(" libsvm <#features> <density> [<label noise>]")
+      println(" text <vocabulary size> <Zipf exponent> <avg words per line>")
+      println(" links <#pages> <power-law exponent>")
+      println(" csv <#files> <#columns per file> <#INDs> [<max distinct values per column>] (size per file, URL is a directory)")
+      sys.exit(1)
+    }
+
+    val (generatorName, url, size, seed) = (args(0), args(1), parseSize(args(2)), args(3).toLong)
+    val generatorArgs = args.drop(4)
+    val configuration = new Configuration
+    val parallelism = configuration.getLongProperty(
+      "rheem.apps.datagen.parallelism", Runtime.getRuntime.availableProcessors
+    ).toInt
+
+    val generators: Seq[(String, DataGenerator)] = generatorName match {
+      case "points" => Seq(url -> new ClusteredPointsGenerator(
+        generatorArgs(0).toInt,
+        if (generatorArgs.length > 1) generatorArgs(1).toInt else 2,
+        if (generatorArgs.length > 2) generatorArgs(2).toDouble else 1d,
+        seed
+      ))
+      case "libsvm" => Seq(url -> new LibsvmGenerator(
+        generatorArgs(0).toInt, generatorArgs(1).toDouble, if (generatorArgs.length > 2) generatorArgs(2).toDouble else .1d, seed
+      ))
+      case "text" => Seq(url -> new ZipfTextGenerator(
+        generatorArgs(0).toInt, generatorArgs(1).toDouble, generatorArgs(2).toInt
+      ))
+      case "links" => Seq(url -> new LinkGraphGenerator(generatorArgs(0).toInt, generatorArgs(1).toDouble, seed))
+      case "csv" =>
+        val schema = new IndSchema(
+          generatorArgs(0).toInt, generatorArgs(1).toInt, generatorArgs(2).toInt,
+          if (generatorArgs.length > 3) generatorArgs(3).toInt else 10000, seed
+        )
+        if (size.numRecords >= 0 && size.numRecords < schema.maxDistinctValues) {
+          println(s"Warning: With fewer than ${schema.maxDistinctValues} rows per file, some INDs might not hold.")
+        }
+        val directory = if (url.endsWith("/")) url else url + "/"
+        println("Planted INDs:")
+        schema.plantedInds.foreach { case (dep, ref) =>
+          println(s" ${directory}${schema.fileName(dep / schema.numColumns)}[${dep % schema.numColumns}] < " +
+            s"${directory}${schema.fileName(ref / schema.numColumns)}[${ref % schema.numColumns}]")
+        }
+        for (file <- 0 until schema.numFiles) yield directory + schema.fileName(file) -> new IndCsvGenerator(schema, file)
+      case other =>
+        println(s"Unknown generator: $other")
+        sys.exit(1)
+    }
+
+    for (((fileUrl, generator), index) <- generators.zipWithIndex) {
+      val startTime = System.currentTimeMillis
+      val (numRecords, numBytes) = write(generator, fileUrl, size, seed + index, parallelism)
+      println(f"Wrote $numRecords%,d lines ($numBytes%,d bytes) to $fileUrl in ${System.currentTimeMillis - startTime}%,d ms.")
+    }
+  }
+
+}
@@ -0,0 +1,99 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+import scala.collection.mutable
+
+/**
+  * Describes several CSV files with planted inclusion dependencies (INDs), e.g., for
+  * [[org.qcri.rheem.apps.sindy.Sindy]]. Every column draws its values from a domain of `v<namespace>_<n>` for
+  * `n < domainSize`. Referenced columns cycle through their full domain, while the dependent columns pick random values
+  * from a prefix of the domain of the column they reference. All other columns have their own namespace, so that
+  * INDs arise only between columns that reference the same column.
+  *
+  * @param numFiles          the number of CSV files
+  * @param numColumns        the number of columns per file
+  * @param numInds           the number of INDs to plant
+  * @param maxDistinctValues the maximum domain size per column; the planted INDs hold if every file has at least that
+  *                          many rows
+  * @param seed              determines the domains and planted INDs
+  */
+class IndSchema(val numFiles: Int, val numColumns: Int, numInds: Int, val maxDistinctValues: Int, seed: Long) {
+
+  require(numFiles > 0 && numColumns > 0 && maxDistinctValues > 0, "Need files, columns, and values.")
+
+  private val random = new SplittableRandom(seed)
+
+  /**
+    * Namespaces per global column ID, i.e., `file * numColumns + column`.
+    */
+  val namespaces: Array[Int] = Array.range(0, numFiles * numColumns)
+
+  /**
+    * Domain sizes per global column ID.
+    */
+  val domainSizes: Array[Int] = Array.fill(numFiles * numColumns)(1 + random.nextInt(maxDistinctValues))
+
+  /**
+    * Tells per global column ID whether it cycles through its domain.
+    */
+  val isReferenced: Array[Boolean] = new Array[Boolean](numFiles * numColumns)
+
+  /**
+    * The planted INDs as pairs of dependent and referenced global column IDs.
+    */
+  val plantedInds: Seq[(Int, Int)] = {
+    val inds = mutable.ArrayBuffer[(Int, Int)]()
+    val isDependent = new Array[Boolean](numFiles * numColumns)
+    var numAttempts = 0
+    while (inds.size < numInds && numAttempts < 100 * (numInds + 1)) {
+      val (dep, ref) = (random.nextInt(namespaces.length), random.nextInt(namespaces.length))
+      if (dep != ref && !isDependent(dep) && !isReferenced(dep) && !isDependent(ref)) {
+        isDependent(dep) = true
+        isReferenced(ref) = true
+        namespaces(dep) = namespaces(ref)
+        domainSizes(dep) = 1 + random.nextInt(domainSizes(ref))
+        inds += dep -> ref
+      }
+      numAttempts += 1
+    }
+    if (inds.size < numInds) println(s"Could plant only ${inds.size} of $numInds INDs.")
+    inds
+  }
+
+  /**
+    * Provides the name of a CSV file.
+    */
+  def fileName(file: Int) = s"table$file.csv"
+
+}
+
+/**
+  * Generates the `;`-separated rows of one of the files of an [[IndSchema]].
+  *
+  * @param schema the [[IndSchema]]
+  * @param file   the index of the file
+  */
+class IndCsvGenerator(schema: IndSchema, file: Int) extends DataGenerator {
+
+  override def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int,
+                             out: java.lang.StringBuilder): Unit = {
+    val firstColumn = file * schema.numColumns
+    var record = 0
+    while (record < numRecords) {
+      var column = firstColumn
+      while (column < firstColumn + schema.numColumns) {
+        if (column > firstColumn) out.append(';')
+        val domainSize = schema.domainSizes(column)
+        val value =
+          if (schema.isReferenced(column)) (firstRecord + record) % domainSize
+          else random.nextInt(domainSize)
+        out.append('v').append(schema.namespaces(column)).append('_').append(value)
+        column += 1
+      }
+      out.append('\n')
+      record += 1
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+/**
+  * Generates sparse data points in the LIBSVM format, i.e., `<label> <index>:<value> ...` with 1-based ascending
+  * indices, for [[org.qcri.rheem.apps.sgd.SGD]]. The labels are `0` or `1` and stem from a hidden linear model, so
+  * that logistic regression can actually learn something.
+  *
+  * @param numFeatures the number of features
+  * @param density     the expected fraction of non-zero features per point
+  * @param labelNoise  the fraction of points whose labels are flipped
+  * @param seed        determines the hidden model
+  */
+class LibsvmGenerator(val numFeatures: Int, val density: Double, val labelNoise: Double, seed: Long)
+  extends DataGenerator {
+
+  require(numFeatures > 0 && density > 0 && density <= 1, "Need features and a density in (0, 1].")
+
+  /**
+    * The hidden weights with standard normal entries.
+    */
+  val weights: Array[Double] = {
+    val random = new SplittableRandom(seed)
+    Array.fill(numFeatures)(DataGenerator.nextGaussian(random))
+  }
+
+  private val logSkipProbability = math.log(1 - density)
+
+  override def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int,
+                             out: java.lang.StringBuilder): Unit = {
+    val features = new java.lang.StringBuilder(256)
+    var record = 0
+    while (record < numRecords) {
+      features.setLength(0)
+      var dot = 0d
+      var index = nextIndex(random, -1)
+      while (index < numFeatures) {
+        val value = math.round(DataGenerator.nextGaussian(random) * 1e4) / 1e4
+        dot += weights(index) * value
+        features.append(' ').append(index + 1).append(':')
+        DataGenerator.appendFixed(features, value, 4)
+        index = nextIndex(random, index)
+      }
+      val isPositive = (dot > 0) != (random.nextDouble() < labelNoise)
+      out.append(if (isPositive) '1' else '0').append(features).append('\n')
+      record += 1
+    }
+  }
+
+  /**
+    * Draws the next non-zero feature via geometric skips, so that sparse points cost time only per non-zero feature.
+    */
+  private def nextIndex(random: SplittableRandom, index: Int): Int =
+    if (density >= 1) index + 1
+    else {
+      val skip = math.floor(math.log(1 - random.nextDouble()) / logSkipProbability)
+      if (skip >= numFeatures) numFeatures else math.min(numFeatures.toLong, index + 1L + skip.toLong).toInt
+    }
+
+}
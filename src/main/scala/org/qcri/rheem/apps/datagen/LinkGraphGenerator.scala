@@ -0,0 +1,64 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+import org.qcri.rheem.apps.crocopr.LinkParser
+
+/**
+  * Generates page links as N-Triples in the DBpedia format that [[LinkParser]] reads, e.g., for
+  * [[org.qcri.rheem.apps.crocopr.CrocoPR]]. Sources and targets follow Zipf distributions over differently permuted
+  * pages, so that both the out-degrees and the in-degrees follow power laws, but the hubs do not coincide.
+  *
+  * @param numPages the number of pages
+  * @param exponent the power-law exponent of the degree distributions
+  * @param seed     determines the permutations of the pages
+  */
+class LinkGraphGenerator(val numPages: Int, val exponent: Double, seed: Long) extends DataGenerator {
+
+  require(numPages > 1, "Need at least two pages.")
+
+  private val distribution = new ZipfDistribution(numPages, exponent)
+
+  private val (sourcePages, targetPages) = {
+    val random = new SplittableRandom(seed)
+    (LinkGraphGenerator.shuffledRange(numPages, random), LinkGraphGenerator.shuffledRange(numPages, random))
+  }
+
+  override def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int,
+                             out: java.lang.StringBuilder): Unit = {
+    var record = 0
+    while (record < numRecords) {
+      val source = sourcePages(distribution.sample(random))
+      var target = targetPages(distribution.sample(random))
+      while (target == source) target = targetPages(distribution.sample(random))
+      out.append(LinkParser.resourcePrefix).append("Page_").append(source).append("> ")
+        .append(LinkParser.predicate).append(' ')
+        .append(LinkParser.resourcePrefix).append("Page_").append(target).append("> .\n")
+      record += 1
+    }
+  }
+
+}
+
+/**
+  * Companion object for [[LinkGraphGenerator]].
+  */
+object LinkGraphGenerator {
+
+  /**
+    * Creates a random permutation of `0 until n` via Fisher-Yates.
+    */
+  private def shuffledRange(n: Int, random: SplittableRandom): Array[Int] = {
+    val values = Array.range(0, n)
+    var i = n - 1
+    while (i > 0) {
+      val j = random.nextInt(i + 1)
+      val value = values(i)
+      values(i) = values(j)
+      values(j) = value
+      i -= 1
+    }
+    values
+  }
+
+}
@@ -0,0 +1,41 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+/**
+  * Samples ranks `0 until n` with probabilities proportional to `1 / (rank + 1)^exponent` via binary search on the
+  * cumulative distribution.
+  *
+  * @param n        the number of ranks
+  * @param exponent the Zipf exponent
+  */
+class ZipfDistribution(val n: Int, val exponent: Double) {
+
+  require(n > 0 && exponent >= 0, "Need at least one rank and a non-negative exponent.")
+
+  private val cumulativeProbabilities: Array[Double] = {
+    val weights = new Array[Double](n)
+    var sum = 0d
+    var rank = 0
+    while (rank < n) {
+      sum += math.pow(rank + 1, -exponent)
+      weights(rank) = sum
+      rank += 1
+    }
+    rank = 0
+    while (rank < n) {
+      weights(rank) /= sum
+      rank += 1
+    }
+    weights
+  }
+
+  /**
+    * Draws a rank.
+    */
+  def sample(random: SplittableRandom): Int = {
+    val searchResult = java.util.Arrays.binarySearch(cumulativeProbabilities, random.nextDouble())
+    math.min(if (searchResult >= 0) searchResult else -searchResult - 1, n - 1)
+  }
+
+}
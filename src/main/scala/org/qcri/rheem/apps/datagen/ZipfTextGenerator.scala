@@ -0,0 +1,66 @@
+package org.qcri.rheem.apps.datagen
+
+import java.util.SplittableRandom
+
+/**
+  * Generates lines of words whose frequencies follow a Zipf distribution, e.g., for
+  * [[org.qcri.rheem.apps.wordcount.WordCountScala]], [[org.qcri.rheem.apps.simwords.SimWords]], and
+  * [[org.qcri.rheem.apps.simwords.Word2NVec]]. The word with rank `r` is `r + 1` written in bijective base 26 with the
+  * letters `a` to `z`, so that frequent words are short as in natural language.
+  *
+  * @param vocabularySize the number of distinct words
+  * @param exponent       the Zipf exponent; about `1` for natural language
+  * @param wordsPerLine   the average number of words per line
+  */
+class ZipfTextGenerator(val vocabularySize: Int, val exponent: Double, val wordsPerLine: Int) extends DataGenerator {
+
+  require(wordsPerLine > 0, "Need at least one word per line.")
+
+  private val distribution = new ZipfDistribution(vocabularySize, exponent)
+
+  override def generateChunk(random: SplittableRandom, firstRecord: Long, numRecords: Int,
+                             out: java.lang.StringBuilder): Unit = {
+    var record = 0
+    while (record < numRecords) {
+      val numWords = 1 + random.nextInt(2 * wordsPerLine - 1)
+      var i = 0
+      while (i < numWords) {
+        if (i > 0) out.append(' ')
+        ZipfTextGenerator.appendWord(out, distribution.sample(random))
+        i += 1
+      }
+      out.append('\n')
+      record += 1
+    }
+  }
+
+}
+
+/**
+  * Companion object for [[ZipfTextGenerator]].
+  */
+object ZipfTextGenerator {
+
+  /**
+    * Appends the word for a rank.
+    */
+  def appendWord(out: java.lang.StringBuilder, rank: Int): Unit = {
+    val start = out.length
+    var n = rank.toLong + 1
+    while (n > 0) {
+      n -= 1
+      out.append(('a' + n % 26).toChar)
+      n /= 26
+    }
+    // The letters have been appended least significant first.
+    var (left, right) = (start, out.length - 1)
+    while (left < right) {
+      val c = out.charAt(left)
+      out.setCharAt(left, out.charAt(right))
+      out.setCharAt(right, c)
+      left += 1
+      right -= 1
+    }
+  }
+
+}
@@ -4,7 +4,7 @@ import java.util
 
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.util.{AppsKryo, BroadcastCache, ExperimentDescriptor, Instrumentation, Parameters, ProfileDBHelper}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.function.ExecutionContext
 import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
@@ -31,13 +31,17 @@ class Kmeans(plugin: Plugin*) {
       .withExperiment(experiment)
       .withUdfJarsOf(this.getClass)
 
+    // Name the instrumented operators, so that their measurements can be matched.
+    val (createPoints, findNearestCentroid, addUpPoints, averagePoints) =
+      ("Create points", "Find nearest centroid", "Add up points", "Average points")
+
     // Read and parse the input file(s).
     val points = planBuilder
       .readTextFile(inputFile).withName("Read file")
-      .map { line =>
+      .map(Instrumentation.wrap(createPoints, { line: String =>
         val fields = line.split(",")
         Point(fields(0).toDouble, fields(1).toDouble)
-      }.withName("Create points")
+      })).withName(createPoints)
 
     // Create initial centroids.
     val initialCentroids = planBuilder
@@ -47,13 +51,16 @@ class Kmeans(plugin: Plugin*) {
     val finalCentroids = initialCentroids.repeat(iterations, { currentCentroids =>
       val newCentroids = points
         .mapJava(
-          new SelectNearestCentroid,
+          Instrumentation.wrapJava(findNearestCentroid, new SelectNearestCentroid),
           udfLoad = LoadProfileEstimators.createFromSpecification("rheem.apps.kmeans.udfs.select-centroid.load", configuration)
         )
-        .withBroadcast(currentCentroids, "centroids").withName("Find nearest centroid")
-        .reduceByKey(_.centroidId, _ + _).withName("Add up points")
+        .withBroadcast(currentCentroids, "centroids").withName(findNearestCentroid)
+        .reduceByKey(
+          Instrumentation.wrapKey(addUpPoints, (_: TaggedPointCounter).centroidId),
+          Instrumentation.wrap2(addUpPoints, (_: TaggedPointCounter) + (_: TaggedPointCounter))
+        ).withName(addUpPoints)
         .withCardinalityEstimator(k)
-        .map(_.average).withName("Average points")
+        .map(Instrumentation.wrap(averagePoints, (_: TaggedPointCounter).average)).withName(averagePoints)
 
 
       if (isResurrect) {
@@ -95,6 +102,8 @@ object Kmeans extends ExperimentDescriptor {
 
     implicit val experiment = Parameters.createExperiment(args(0), this)
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
+    Instrumentation.start(configuration)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
     val file = args(2)
@@ -109,10 +118,12 @@ object Kmeans extends ExperimentDescriptor {
 
     // Run k-means.
     val centroids = kmeans(k, file, numIterations)
+    BroadcastCache.clear()
 
     // Store experiment data.
     val fileSize = FileSystems.getFileSize(file)
     if (fileSize.isPresent) experiment.getSubject.addConfiguration("inputSize", fileSize.getAsLong)
+    Instrumentation.stop(experiment)
     ProfileDBHelper.store(experiment, configuration)
 
     // Print the result.
@@ -139,24 +150,13 @@ object Kmeans extends ExperimentDescriptor {
 class SelectNearestCentroid extends ExtendedSerializableFunction[Point, TaggedPointCounter] {
 
   /** Keeps the broadcasted centroids. */
-  var centroids: util.Collection[TaggedPoint] = _
+  var centroids: Centroids = _
 
   override def open(executionCtx: ExecutionContext) = {
-    centroids = executionCtx.getBroadcast[TaggedPoint]("centroids")
+    centroids = Centroids.fromBroadcast[TaggedPoint](executionCtx, "centroids", "kmeans-centroids")(_.x, _.y, _.centroidId)
   }
 
-  override def apply(point: Point): TaggedPointCounter = {
-    var minDistance = Double.PositiveInfinity
-    var nearestCentroidId = -1
-    for (centroid <- centroids) {
-      val distance = point.distanceTo(centroid)
-      if (distance < minDistance) {
-        minDistance = distance
-        nearestCentroidId = centroid.centroidId
-      }
-    }
-    new TaggedPointCounter(point, nearestCentroidId, 1)
-  }
+  override def apply(point: Point): TaggedPointCounter = new TaggedPointCounter(point, centroids.nearest(point), 1)
 }
 
 
@@ -237,3 +237,86 @@ case class TaggedPointCounter(x: Double, y: Double, centroidId: Int, count: Int
   def average = TaggedPoint(x / count, y / count, centroidId)
 
 }
+
+/**
+  * Keeps the coordinates and IDs of centroids in primitive arrays to quickly find the nearest one for a point.
+  *
+  * @param xs  the x coordinates of the centroids
+  * @param ys  the y coordinates of the centroids
+  * @param ids the IDs of the centroids
+  */
+class Centroids(xs: Array[Double], ys: Array[Double], ids: Array[Int]) {
+
+  /**
+    * Finds the nearest centroid to a point.
+    *
+    * @param point the point
+    * @return the ID of the nearest centroid or `-1` if there are no centroids
+    */
+  def nearest(point: PointLike): Int = this.nearest(point.x, point.y)
+
+  /**
+    * Finds the nearest centroid to a point.
+    *
+    * @param x the x coordinate of the point
+    * @param y the y coordinate of the point
+    * @return the ID of the nearest centroid or `-1` if there are no centroids
+    */
+  def nearest(x: Double, y: Double): Int = {
+    var minSquaredDistance = Double.PositiveInfinity
+    var nearestCentroidId = -1
+    var i = 0
+    while (i < ids.length) {
+      val dx = x - xs(i)
+      val dy = y - ys(i)
+      val squaredDistance = dx * dx + dy * dy
+      if (squaredDistance < minSquaredDistance) {
+        minSquaredDistance = squaredDistance
+        nearestCentroidId = ids(i)
+      }
+      i += 1
+    }
+    nearestCentroidId
+  }
+
+}
+
+object Centroids {
+
+  /**
+    * Creates [[Centroids]] from any centroid representation, e.g., the [[TaggedPoint]]s of this app and those of
+    * its PostgreSQL variant.
+    *
+    * @param centroids the centroids
+    * @param x         extracts the x coordinate of a centroid
+    * @param y         extracts the y coordinate of a centroid
+    * @param id        extracts the ID of a centroid
+    * @return the [[Centroids]]
+    */
+  def apply[T](centroids: util.Collection[T])(x: T => Double, y: T => Double, id: T => Int): Centroids = {
+    val xs, ys = new Array[Double](centroids.size)
+    val ids = new Array[Int](centroids.size)
+    var i = 0
+    for (centroid <- centroids) {
+      xs(i) = x(centroid)
+      ys(i) = y(centroid)
+      ids(i) = id(centroid)
+      i += 1
+    }
+    new Centroids(xs, ys, ids)
+  }
+
+  /**
+    * Retrieves the [[Centroids]] for a broadcast from the [[BroadcastCache]].
+    *
+    * @param executionCtx  provides the broadcast
+    * @param broadcastName the name of the broadcast with the centroids
+    * @param kind          distinguishes the centroid representations in the [[BroadcastCache]]
+    * @return the [[Centroids]]
+    * @see #apply
+    */
+  def fromBroadcast[T](executionCtx: ExecutionContext, broadcastName: String, kind: String)
+                      (x: T => Double, y: T => Double, id: T => Int): Centroids =
+    BroadcastCache.getOrCreate[T, Centroids](executionCtx, broadcastName, kind)(Centroids(_)(x, y, id))
+
+}
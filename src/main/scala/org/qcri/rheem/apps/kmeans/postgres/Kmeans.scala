@@ -1,10 +1,9 @@
 package org.qcri.rheem.apps.kmeans.postgres
 
-import java.util
-
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api.{PlanBuilder, _}
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.kmeans.Centroids
+import org.qcri.rheem.apps.util.{AppsKryo, BroadcastCache, ExperimentDescriptor, Parameters, ProfileDBHelper}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.function.ExecutionContext
 import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
@@ -95,6 +94,7 @@ object Kmeans extends ExperimentDescriptor {
 
     implicit val experiment = Parameters.createExperiment(args(0), this)
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
     val file = args(2)
@@ -109,6 +109,7 @@ object Kmeans extends ExperimentDescriptor {
 
     // Run k-means.
     val centroids = kmeans(k, file, numIterations)
+    BroadcastCache.clear()
 
     // Store experiment data.
     val fileSize = FileSystems.getFileSize(file)
@@ -139,24 +140,16 @@ object Kmeans extends ExperimentDescriptor {
 class SelectNearestCentroid extends ExtendedSerializableFunction[Point, TaggedPointCounter] {
 
   /** Keeps the broadcasted centroids. */
-  var centroids: util.Collection[TaggedPoint] = _
+  var centroids: Centroids = _
 
   override def open(executionCtx: ExecutionContext) = {
-    centroids = executionCtx.getBroadcast[TaggedPoint]("centroids")
+    centroids = Centroids.fromBroadcast[TaggedPoint](executionCtx, "centroids", "kmeans-postgres-centroids")(
+      _.x, _.y, _.centroidId
+    )
   }
 
-  override def apply(point: Point): TaggedPointCounter = {
-    var minDistance = Double.PositiveInfinity
-    var nearestCentroidId = -1
-    for (centroid <- centroids) {
-      val distance = point.distanceTo(centroid)
-      if (distance < minDistance) {
-        minDistance = distance
-        nearestCentroidId = centroid.centroidId
-      }
-    }
-    new TaggedPointCounter(point, nearestCentroidId, 1)
-  }
+  override def apply(point: Point): TaggedPointCounter =
+    new TaggedPointCounter(point, centroids.nearest(point.x, point.y), 1)
 }
 
 
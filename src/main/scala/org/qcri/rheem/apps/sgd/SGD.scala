@@ -1,6 +1,6 @@
 package org.qcri.rheem.apps.sgd
 
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.util.{AppsKryo, ExperimentDescriptor, Parameters, ProfileDBHelper, ValuesMeasurement}
 import org.qcri.rheem.core.api.Configuration
 
 /**
@@ -14,12 +14,17 @@ object SGD extends ExperimentDescriptor {
     // Parse args.
     if (args.isEmpty) {
       println(s"Usage: scala <main class> ${Parameters.experimentHelp} <plugin(,plugin)*> " +
-        s"<aggregation (regular|preaggregation)> <dataset URL> <dataset size> <#features> <max iterations> <accuracy> <sample size>")
+        s"<aggregation (regular|preaggregation|averaging)> <dataset URL> <dataset size> <#features> <max iterations> <accuracy> <sample size> " +
+        s"[<representation (dense|sparse|binary)> [<optimizer (sgd|adagrad|adam)> [<holdout URL>]]]")
+      println("The averaging ignores the sample size and runs local mini-batch steps, configured via " +
+        "rheem.apps.sgd.averaging.batchsize (default: 100), rheem.apps.sgd.averaging.steps (default: 10), " +
+        "and rheem.apps.sgd.averaging.threads (default: 1).")
       sys.exit(1)
     }
 
     implicit val experiment = Parameters.createExperiment(args(0), this)
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
     val aggregationType = args(2)
@@ -36,19 +41,87 @@ object SGD extends ExperimentDescriptor {
     experiment.getSubject.addConfiguration("accuracy", accuracy)
     val sampleSize = args(8).toInt
     experiment.getSubject.addConfiguration("sampleSize", sampleSize)
+    val representation = if (args.length > 9) args(9) else "dense"
+    if (!Set("dense", "sparse", "binary").contains(representation)) sys.error("Unknown representation: " + representation)
+    val isSparse = representation == "sparse"
+    experiment.getSubject.addConfiguration("representation", representation)
+    val optimizer = if (args.length > 10) args(10) match {
+      case "sgd" => Optimizer.SGD
+      case "adagrad" => Optimizer.ADAGRAD
+      case "adam" => Optimizer.ADAM
+      case other => sys.error("Unknown optimizer: " + other)
+    } else Optimizer.SGD
+    experiment.getSubject.addConfiguration("optimizer", optimizer.name.toLowerCase)
+    val stepSize = configuration.getStringProperty("rheem.apps.sgd.stepsize", optimizer.defaultStepSize.toString).toDouble
+    experiment.getSubject.addConfiguration("stepSize", stepSize)
+    val holdoutUrl = if (args.length > 11) args(11) else null
+    if (holdoutUrl != null) experiment.getSubject.addConfiguration("holdout", holdoutUrl)
+    val isPlainDescent = optimizer == Optimizer.SGD && holdoutUrl == null
 
     var weights: Array[Double] = null
     aggregationType match {
       case "regular" =>
+        if (representation != "dense") sys.error(s"The $representation representation requires the preaggregation.")
+        if (!isPlainDescent) sys.error("Optimizers and holdout datasets require the preaggregation.")
         // Initialize the SGD algorithm.
         val sgd = new SGDImpl(configuration, plugins.toArray)
         // Run the SGD.
         weights = sgd(datasetUrl, datasetSize, numFeatures, maxIterations, accuracy, sampleSize, experiment)
+      case "preaggregation" if representation == "binary" =>
+        if (!isPlainDescent) sys.error("Optimizers and holdout datasets are not supported for the binary representation.")
+        // Convert the dataset unless that has been done before.
+        val binaryUrl = configuration.getStringProperty("rheem.apps.sgd.binary", datasetUrl + ".bin")
+        experiment.getSubject.addConfiguration("binaryInput", binaryUrl)
+        if (!BinaryDataset.exists(binaryUrl)) BinaryDataset.convert(datasetUrl, binaryUrl)
+        // The row IDs are sampled from the actual rows, so the given dataset size does not matter.
+        val numRows = {
+          val reader = new BinaryDataset.Reader(binaryUrl)
+          try reader.getNumRows finally reader.close()
+        }
+        experiment.getSubject.addConfiguration("binaryRows", numRows)
+        if (numRows != datasetSize) println(s"Ignoring the dataset size $datasetSize in favor of the $numRows rows in $binaryUrl.")
+        // Initialize the SGD algorithm.
+        val sgd = new SGDImprovedImpl(configuration, plugins.toArray)
+        // Run the SGD.
+        val seed = configuration.getLongProperty("rheem.apps.sgd.seed", 42L)
+        weights = sgd.applyOnBinaryDataset(binaryUrl, numFeatures, maxIterations, accuracy, sampleSize, seed, experiment)
+      case "averaging" =>
+        if (representation != "dense") sys.error(s"The $representation representation is not supported for the averaging.")
+        if (!isPlainDescent) sys.error("Optimizers and holdout datasets are not supported for the averaging.")
+        val batchSize = configuration.getLongProperty("rheem.apps.sgd.averaging.batchsize", 100).toInt
+        experiment.getSubject.addConfiguration("batchSize", batchSize)
+        val localSteps = configuration.getLongProperty("rheem.apps.sgd.averaging.steps", 10).toInt
+        experiment.getSubject.addConfiguration("localSteps", localSteps)
+        val numThreads = configuration.getLongProperty("rheem.apps.sgd.averaging.threads", 1).toInt
+        experiment.getSubject.addConfiguration("threads", numThreads)
+        // Initialize the SGD algorithm.
+        val sgd = new SGDImprovedImpl(configuration, plugins.toArray)
+        // Run the SGD.
+        val seed = configuration.getLongProperty("rheem.apps.sgd.seed", 42L)
+        val startTime = System.currentTimeMillis
+        val model = sgd.applyWithModelAveraging(datasetUrl, numFeatures, maxIterations, accuracy, batchSize,
+          localSteps, numThreads, seed, experiment)
+        val wallTime = System.currentTimeMillis - startTime
+        if (model != null) {
+          weights = model.take(numFeatures)
+          val averagedModels = model(numFeatures + 2).toInt
+          if (averagedModels < 2) println(s"Only $averagedModels partition model(s) got averaged, e.g., because the " +
+            s"platform (such as Java) processes $datasetUrl as a single partition.")
+          ValuesMeasurement.addTo(experiment, "sgd",
+            "rounds" -> model(numFeatures + 1).toInt, "wallTime" -> wallTime, "loss" -> model(numFeatures),
+            "averagedModels" -> averagedModels)
+        }
       case "preaggregation" =>
         // Initialize the SGD algorithm.
         val sgd = new SGDImprovedImpl(configuration, plugins.toArray)
         // Run the SGD.
-        weights = sgd(datasetUrl, datasetSize, numFeatures, maxIterations, accuracy, sampleSize, experiment)
+        val model = sgd.train(datasetUrl, datasetSize, numFeatures, maxIterations, accuracy, sampleSize, isSparse,
+          optimizer, stepSize, holdoutUrl, experiment)
+        if (model != null) {
+          weights = model.take(numFeatures)
+          if (holdoutUrl != null) ValuesMeasurement.addTo(experiment, "sgd",
+            "holdoutLoss" -> model(model.length - 1), "bestHoldoutLoss" -> model(model.length - 2))
+        }
       case other => sys.error("Unknown aggregation type: " + other)
     }
 
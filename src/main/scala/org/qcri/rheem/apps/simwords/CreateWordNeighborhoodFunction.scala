@@ -13,14 +13,14 @@ import scala.collection.JavaConversions._
 class CreateWordNeighborhoodFunction(neighborhoodReach: Int, dictionaryBroadcastName: String)
   extends ExtendedSerializableFunction[String, java.lang.Iterable[(Int, SparseVector)]] {
 
-  private var dictionary: Map[String, Int] = _
+  private var dictionary: WordDictionary = _
 
   private lazy val textScrubber = new TextScrubber
 
   private lazy val collector = new java.util.ArrayList[String]
 
   override def open(ctx: ExecutionContext): Unit = {
-    this.dictionary = ctx.getBroadcast[(String, Int)](dictionaryBroadcastName).toMap
+    this.dictionary = WordDictionary.fromBroadcast(ctx, dictionaryBroadcastName)
   }
 
   override def apply(value: String): java.lang.Iterable[(Int, SparseVector)] = {
@@ -29,7 +29,7 @@ class CreateWordNeighborhoodFunction(neighborhoodReach: Int, dictionaryBroadcast
     this.textScrubber.splitAndScrub(value, this.collector)
     // Make sure that there is at least one neighbor; otherwise, the resulting vector will not support cosine similarity
     if (this.collector.size > 1) {
-      val wordIds = this.collector.map(this.dictionary.getOrElse(_, -1))
+      val wordIds = this.collector.map(this.dictionary.getId)
       for (i <- wordIds.indices) {
         val builder = new SparseVector.Builder
         for (j <- math.max(0, i - neighborhoodReach) until i; if wordIds(j) != -1) {
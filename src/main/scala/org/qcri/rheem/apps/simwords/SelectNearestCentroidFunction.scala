@@ -1,11 +1,10 @@
 package org.qcri.rheem.apps.simwords
 
+import org.qcri.rheem.apps.util.BroadcastCache
 import org.qcri.rheem.core.function.ExecutionContext
 import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
-import org.qcri.rheem.core.util.RheemCollections
 import org.slf4j.LoggerFactory
 
-import scala.collection.JavaConversions._
 import scala.util.Random
 
 /**
@@ -17,12 +16,14 @@ class SelectNearestCentroidFunction(broadcastName: String)
 
   private lazy val logger = LoggerFactory.getLogger(getClass)
 
-  private var centroids: java.util.List[(Int, SparseVector)] = _
+  private var centroids: Array[(Int, SparseVector)] = _
 
   private lazy val random = new Random()
 
   override def open(executionCtx: ExecutionContext): Unit = {
-    this.centroids = RheemCollections.asList(executionCtx.getBroadcast[(Int, SparseVector)](broadcastName))
+    this.centroids = BroadcastCache.getOrCreate[(Int, SparseVector), Array[(Int, SparseVector)]](
+      executionCtx, broadcastName, "simwords-centroids"
+    )(_.toArray(new Array[(Int, SparseVector)](0)))
   }
 
   override def apply(wnvector: (Int, SparseVector)): (Int, SparseVector, Int) = {
@@ -39,7 +40,7 @@ class SelectNearestCentroidFunction(broadcastName: String)
     if (nearestCentroid == -1) {
       logger.info("Did not find a matching centroid for {}", wnvector)
       maxSimilarity = 0
-      nearestCentroid = this.centroids.get(this.random.nextInt(this.centroids.size()))._1
+      nearestCentroid = this.centroids(this.random.nextInt(this.centroids.length))._1
     }
 
     (wnvector._1, wnvector._2, nearestCentroid)
@@ -2,7 +2,7 @@ package org.qcri.rheem.apps.simwords
 
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.util.{AppsKryo, BroadcastCache, ExperimentDescriptor, Instrumentation, Parameters, ProfileDBHelper}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.optimizer.ProbabilisticDoubleInterval
 import org.qcri.rheem.core.optimizer.costs.LoadProfileEstimators
@@ -33,6 +33,11 @@ class SimWords(plugins: Plugin*) {
       ).withExperiment(experiment)
       .withUdfJarsOf(this.getClass)
 
+    // Name the instrumented operators, so that their measurements can be matched.
+    val (createWordVectors, addWordVectors, selectNearestCentroids, addUpClusterWords) =
+      ("Create word vectors", "Add word vectors", "Select nearest centroids", "Add up cluster words")
+    val (selectNearestFinalCentroids, resolveWordIds) = ("Select nearest final centroids", "Resolve word IDs")
+
     // Create the word dictionary
     val _minWordOccurrences = minWordOccurrences
     val wordIds = planBuilder
@@ -52,14 +57,17 @@ class SimWords(plugins: Plugin*) {
     val wordVectors = planBuilder
       .readTextFile(inputFile).withName("Read corpus (2)")
       .flatMapJava(
-        new CreateWordNeighborhoodFunction(neighborhoodReach, "wordIds"),
+        Instrumentation.wrapJava(createWordVectors, new CreateWordNeighborhoodFunction(neighborhoodReach, "wordIds")),
         selectivity = wordsPerLine,
         udfLoad = LoadProfileEstimators.createFromSpecification("rheem.apps.simwords.udfs.create-neighborhood.load", configuration)
 
       )
       .withBroadcast(wordIds, "wordIds")
-      .withName("Create word vectors")
-      .reduceByKey(_._1, (wv1, wv2) => (wv1._1, wv1._2 + wv2._2)).withName("Add word vectors")
+      .withName(createWordVectors)
+      .reduceByKey(
+        Instrumentation.wrapKey(addWordVectors, (_: (Int, SparseVector))._1),
+        Instrumentation.wrap2(addWordVectors, (wv1: (Int, SparseVector), wv2: (Int, SparseVector)) => (wv1._1, wv1._2 + wv2._2))
+      ).withName(addWordVectors)
       .map { wv =>
         wv._2.normalize(); wv
       }.withName("Normalize word vectors")
@@ -84,14 +92,17 @@ class SimWords(plugins: Plugin*) {
     val finalCentroids = initialCentroids.repeat(numIterations, { centroids: DataQuanta[(Int, SparseVector)] =>
       val newCentroids: DataQuanta[(Int, SparseVector)] = wordVectors
         .mapJava(
-          new SelectNearestCentroidFunction("centroids"),
+          Instrumentation.wrapJava(selectNearestCentroids, new SelectNearestCentroidFunction("centroids")),
           udfLoad = LoadProfileEstimators.createFromSpecification("rheem.apps.simwords.udfs.select-centroid.load", configuration)
         )
         .withBroadcast(centroids, "centroids")
-        .withName("Select nearest centroids")
+        .withName(selectNearestCentroids)
         .map(assignment => (assignment._3, assignment._2)).withName("Strip word ID")
-        .reduceByKey(_._1, (wv1: (Int, SparseVector), wv2: (Int, SparseVector)) => (wv1._1, wv1._2 + wv2._2))
-        .withName("Add up cluster words").withCardinalityEstimator((in: Long) => _numClusters.toLong)
+        .reduceByKey(
+          Instrumentation.wrapKey(addUpClusterWords, (_: (Int, SparseVector))._1),
+          Instrumentation.wrap2(addUpClusterWords, (wv1: (Int, SparseVector), wv2: (Int, SparseVector)) => (wv1._1, wv1._2 + wv2._2))
+        )
+        .withName(addUpClusterWords).withCardinalityEstimator((in: Long) => _numClusters.toLong)
         .map { centroid: (Int, SparseVector) => centroid._2.normalize(); centroid }.withName("Normalize centroids")
 
       newCentroids
@@ -99,11 +110,11 @@ class SimWords(plugins: Plugin*) {
 
     // Apply the centroids to the points and resolve the word IDs.
     val clusters = wordVectors
-      .mapJava(new SelectNearestCentroidFunction("finalCentroids")).withBroadcast(finalCentroids, "finalCentroids").withName("Select nearest final centroids")
+      .mapJava(Instrumentation.wrapJava(selectNearestFinalCentroids, new SelectNearestCentroidFunction("finalCentroids"))).withBroadcast(finalCentroids, "finalCentroids").withName(selectNearestFinalCentroids)
       .map(assigment => (assigment._3, List(assigment._1))).withName("Discard word vectors")
       .reduceByKey(_._1, (c1, c2) => (c1._1, c1._2 ++ c2._2)).withName("Create clusters")
       .map(_._2).withName("Discard cluster IDs")
-      .mapJava(new ResolveClusterFunction("wordIds")).withBroadcast(wordIds, "wordIds").withName("Resolve word IDs")
+      .mapJava(Instrumentation.wrapJava(resolveWordIds, new ResolveClusterFunction("wordIds"))).withBroadcast(wordIds, "wordIds").withName(resolveWordIds)
 
 
     clusters.collect()
@@ -122,6 +133,8 @@ object SimWords extends ExperimentDescriptor {
     }
 
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
+    Instrumentation.start(configuration)
     implicit val experiment = Parameters.createExperiment(args(0), this)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
@@ -142,10 +155,12 @@ object SimWords extends ExperimentDescriptor {
 
     val simWords = new SimWords(plugins: _*)
     val result = simWords(inputFile, minWordOccurrences, neighborhoodRead, numClusters, numIterations, wordsPerLine)
+    BroadcastCache.clear()
 
     // Store experiment data.
     val inputFileSize = FileSystems.getFileSize(inputFile)
     if (inputFileSize.isPresent) experiment.getSubject.addConfiguration("inputSize", inputFileSize.getAsLong)
+    Instrumentation.stop(experiment)
     ProfileDBHelper.store(experiment, configuration)
 
     // Print the results.
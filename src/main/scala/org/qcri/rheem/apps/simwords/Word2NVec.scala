@@ -2,7 +2,7 @@ package org.qcri.rheem.apps.simwords
 
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.util.{AppsKryo, BroadcastCache, ExperimentDescriptor, Parameters, ProfileDBHelper}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.function.ExecutionContext
 import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
@@ -88,6 +88,7 @@ object Word2NVec extends ExperimentDescriptor {
     }
 
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     implicit val experiment = Parameters.createExperiment(args(0), this)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
@@ -106,6 +107,7 @@ object Word2NVec extends ExperimentDescriptor {
 
     val word2NVec = new Word2NVec(plugins: _*)
     word2NVec(inputFile, minWordOccurrences, neighborhoodRead, wordsPerLine, outputFile)
+    BroadcastCache.clear()
 
     // Store experiment data.
     val inputFileSize = FileSystems.getFileSize(inputFile)
@@ -123,7 +125,7 @@ object Word2NVec extends ExperimentDescriptor {
 private[simwords] class ExtendWordVector
   extends ExtendedSerializableFunction[(Int, SparseVector), (Int, String, SparseVector)] {
 
-  private var words: Map[Int, String] = _
+  private var words: WordDictionary = _
 
   /**
     * Called before this instance is actually executed.
@@ -131,9 +133,8 @@ private[simwords] class ExtendWordVector
     * @param ctx the { @link ExecutionContext}
     */
   override def open(ctx: ExecutionContext): Unit = {
-    import scala.collection.JavaConversions._
-    this.words = ctx.getBroadcast[(String, Int)]("wordIds").map(_.swap).toMap
+    this.words = WordDictionary.fromBroadcast(ctx, "wordIds")
   }
 
-  override def apply(t: (Int, SparseVector)): (Int, String, SparseVector) = (t._1, this.words.getOrElse(t._1, "(unknown)"), t._2)
+  override def apply(t: (Int, SparseVector)): (Int, String, SparseVector) = (t._1, Option(this.words.getWord(t._1)).getOrElse("(unknown)"), t._2)
 }
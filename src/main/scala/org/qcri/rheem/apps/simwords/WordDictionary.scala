@@ -0,0 +1,103 @@
+package org.qcri.rheem.apps.simwords
+
+import org.qcri.rheem.apps.util.BroadcastCache
+import org.qcri.rheem.core.function.ExecutionContext
+
+/**
+  * Bidirectional mapping of words and their IDs. It is backed by open-addressing hash tables over primitive arrays,
+  * so that even large vocabularies are built quickly and do not create an object per entry.
+  *
+  * @param wordIds the words along with their IDs
+  */
+class WordDictionary(wordIds: java.util.Collection[(String, Int)]) {
+
+  private val words = new Array[String](wordIds.size)
+
+  private val ids = new Array[Int](wordIds.size)
+
+  private val mask = Integer.highestOneBit(math.max(2, wordIds.size) * 2 - 1) * 2 - 1
+
+  /**
+    * Hash tables from the words and the IDs, respectively, to their entry index plus `1`; `0` marks empty slots.
+    */
+  private val wordTable, idTable = new Array[Int](this.mask + 1)
+
+  {
+    var index = 0
+    val iterator = wordIds.iterator
+    while (iterator.hasNext) {
+      val (word, id) = iterator.next
+      this.words(index) = word
+      this.ids(index) = id
+      this.insert(this.wordTable, word.hashCode, index)
+      this.insert(this.idTable, id, index)
+      index += 1
+    }
+  }
+
+  private def insert(table: Array[Int], hash: Int, index: Int): Unit = {
+    var slot = WordDictionary.mix(hash) & this.mask
+    while (table(slot) != 0) slot = (slot + 1) & this.mask
+    table(slot) = index + 1
+  }
+
+  /**
+    * @return the number of words
+    */
+  def size: Int = this.words.length
+
+  /**
+    * Looks up the ID of a word.
+    *
+    * @param word the word
+    * @return the ID or `-1` if the word is not known
+    */
+  def getId(word: String): Int = {
+    var slot = WordDictionary.mix(word.hashCode) & this.mask
+    while (this.wordTable(slot) != 0) {
+      val index = this.wordTable(slot) - 1
+      if (this.words(index) == word) return this.ids(index)
+      slot = (slot + 1) & this.mask
+    }
+    -1
+  }
+
+  /**
+    * Looks up the word for an ID.
+    *
+    * @param id the ID
+    * @return the word or `null` if the ID is not known
+    */
+  def getWord(id: Int): String = {
+    var slot = WordDictionary.mix(id) & this.mask
+    while (this.idTable(slot) != 0) {
+      val index = this.idTable(slot) - 1
+      if (this.ids(index) == id) return this.words(index)
+      slot = (slot + 1) & this.mask
+    }
+    null
+  }
+
+}
+
+object WordDictionary {
+
+  /**
+    * Spreads the bits of hash codes, so that sequential IDs do not end up in adjacent slots.
+    */
+  private def mix(hash: Int): Int = {
+    val h = hash * 0x9E3779B9
+    h ^ (h >>> 16)
+  }
+
+  /**
+    * Retrieves the [[WordDictionary]] for a broadcast from the [[BroadcastCache]].
+    *
+    * @param ctx           provides the broadcast
+    * @param broadcastName the name of the broadcast with the words and their IDs
+    * @return the [[WordDictionary]]
+    */
+  def fromBroadcast(ctx: ExecutionContext, broadcastName: String): WordDictionary =
+    BroadcastCache.getOrCreate[(String, Int), WordDictionary](ctx, broadcastName, "word-dictionary")(new WordDictionary(_))
+
+}
@@ -0,0 +1,238 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io._
+import java.nio.charset.StandardCharsets
+import java.util
+
+import org.qcri.rheem.core.api.exception.RheemException
+import org.qcri.rheem.core.function.FunctionDescriptor.SerializableFunction
+
+import scala.collection.JavaConversions._
+
+/**
+  * UDF that turns a partition of CSV rows into cell groups, i.e., it emits each distinct value of the partition only
+  * once along with the [[ColumnSet]] of all its columns. This cuts down the data that needs to be shuffled for the
+  * global cell merging.
+  * <p>If the distinct values of a partition exceed the memory budget, they are sorted and spilled to a local run
+  * file. Eventually, all runs are merge-joined while the output is being consumed. The run files are deleted as soon
+  * as they have been merged, and the output can then be traversed only once.</p>
+  * <p>Rows must not have more fields than the first row of their file, from which the [[ColumnDictionary]] counts the
+  * columns, because the column IDs of the next file follow immediately. Such rows are rejected with a
+  * [[RheemException]]. Before the dense column IDs, their surplus fields were silently assigned further column IDs.</p>
+  *
+  * @param offset       the column ID offset for the input CSV rows
+  * @param numColumns   the number of columns in the input CSV rows
+  * @param separator    the CSV separator
+  * @param memoryBudget the estimated number of bytes the distinct values may occupy before they are spilled
+  * @param spillDir     the directory for run files or `null` for the default temporary directory
+  */
+class CellAggregator(offset: Int, numColumns: Int, separator: Char, memoryBudget: Long, spillDir: String)
+  extends SerializableFunction[java.lang.Iterable[String], java.lang.Iterable[(String, ColumnSet)]] {
+
+  import CellAggregator._
+
+  override def apply(rows: java.lang.Iterable[String]): java.lang.Iterable[(String, ColumnSet)] = {
+    val cells = new util.HashMap[String, ColumnSet]()
+    val runs = new util.ArrayList[File]()
+    var estimatedBytes = 0L
+    val fields = new util.ArrayList[String](numColumns)
+
+    try {
+      for (row <- rows) {
+        splitRow(row, fields)
+        if (fields.size > numColumns) {
+          throw new RheemException(s"Expected at most $numColumns fields, found ${fields.size}: $row")
+        }
+        var i = 0
+        while (i < fields.size) {
+          val value = fields.get(i)
+          val columnSet = cells.get(value)
+          if (columnSet == null) {
+            cells.put(value, ColumnSet(offset + i))
+            estimatedBytes += entryOverhead + 2 * value.length
+          } else if (!columnSet.contains(offset + i)) {
+            columnSet.add(offset + i)
+            estimatedBytes += columnOverhead
+          }
+          i += 1
+        }
+
+        if (estimatedBytes > memoryBudget) {
+          runs.add(this.spill(cells))
+          cells.clear()
+          estimatedBytes = 0L
+        }
+      }
+      if (!runs.isEmpty && !cells.isEmpty) runs.add(this.spill(cells))
+    } catch {
+      case e: Throwable =>
+        runs.foreach(_.delete())
+        throw e
+    }
+
+    if (runs.isEmpty) {
+      val result = new util.ArrayList[(String, ColumnSet)](cells.size)
+      for (entry <- cells.entrySet) result.add((entry.getKey, entry.getValue))
+      result
+    } else {
+      new java.lang.Iterable[(String, ColumnSet)] {
+        private var isTraversed = false
+
+        override def iterator: util.Iterator[(String, ColumnSet)] = {
+          // The runs are deleted while being merged, so we cannot provide them another time.
+          if (this.isTraversed) throw new RheemException("Spilled cells can be traversed only once.")
+          this.isTraversed = true
+          new RunMerger(runs)
+        }
+      }
+    }
+  }
+
+  /**
+    * Splits a CSV row without regular expressions. Like [[String#split]], trailing empty fields are dropped.
+    */
+  private def splitRow(row: String, fields: util.List[String]): Unit = {
+    fields.clear()
+    var start = 0
+    var pos = row.indexOf(separator)
+    while (pos != -1) {
+      fields.add(row.substring(start, pos))
+      start = pos + 1
+      pos = row.indexOf(separator, start)
+    }
+    fields.add(row.substring(start))
+    if (start > 0) {
+      while (!fields.isEmpty && fields.get(fields.size - 1).isEmpty) fields.remove(fields.size - 1)
+    }
+  }
+
+  /**
+    * Writes the given cells sorted by their values to a new run file.
+    *
+    * @return the run file
+    */
+  private def spill(cells: util.Map[String, ColumnSet]): File = {
+    val dir = if (spillDir == null) null else new File(spillDir)
+    val file = File.createTempFile("sindy-cells", ".run", dir)
+    val values = cells.keySet.toArray(new Array[String](cells.size))
+    scala.util.Sorting.quickSort(values)
+    val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))
+    try {
+      for (value <- values) {
+        val bytes = value.getBytes(StandardCharsets.UTF_8)
+        out.writeInt(bytes.length)
+        out.write(bytes)
+        val columnSet = cells.get(value)
+        out.writeInt(columnSet.size)
+        columnSet.foreach(out.writeInt)
+      }
+    } finally {
+      out.close()
+    }
+    file
+  }
+
+}
+
+/**
+  * Companion object for [[CellAggregator]].
+  */
+object CellAggregator {
+
+  /**
+    * Estimated memory footprint of a new distinct value (excluding its characters).
+    */
+  private val entryOverhead = 128
+
+  /**
+    * Estimated memory footprint of an additional column ID for a value.
+    */
+  private val columnOverhead = 8
+
+  /**
+    * Reads a single run file.
+    */
+  private class RunReader(val file: File) {
+
+    private val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))
+
+    var value: String = _
+
+    var columnSet: ColumnSet = _
+
+    this.advance()
+
+    /**
+      * Loads the next cell of the run into [[value]] and [[columnSet]] or sets them to `null` if the run is
+      * exhausted, in which case the file is also closed and deleted.
+      */
+    def advance(): Unit = {
+      val length = try {
+        this.in.readInt()
+      } catch {
+        case _: EOFException =>
+          this.close()
+          return
+      }
+      val bytes = new Array[Byte](length)
+      this.in.readFully(bytes)
+      this.value = new String(bytes, StandardCharsets.UTF_8)
+      val numColumnIds = this.in.readInt()
+      this.columnSet = ColumnSet(this.in.readInt())
+      for (_ <- 1 until numColumnIds) this.columnSet.add(this.in.readInt())
+    }
+
+    /**
+      * Closes and deletes the run file.
+      */
+    def close(): Unit = {
+      this.in.close()
+      this.file.delete()
+      this.value = null
+      this.columnSet = null
+    }
+
+  }
+
+  /**
+    * Merge-joins sorted runs and combines the [[ColumnSet]]s of equal values. Each run file is deleted once it is
+    * exhausted, and all remaining ones upon [[close]].
+    */
+  private class RunMerger(runs: Seq[File]) extends util.Iterator[(String, ColumnSet)] with AutoCloseable {
+
+    private val queue = new util.PriorityQueue[RunReader](
+      math.max(1, runs.size),
+      new util.Comparator[RunReader] {
+        override def compare(r1: RunReader, r2: RunReader): Int = r1.value.compareTo(r2.value)
+      }
+    )
+
+    runs.map(new RunReader(_)).filter(_.value != null).foreach(this.queue.add)
+
+    override def hasNext: Boolean = !this.queue.isEmpty
+
+    override def next(): (String, ColumnSet) = {
+      val head = this.queue.poll()
+      val value = head.value
+      val columnSet = head.columnSet
+      this.requeue(head)
+      while (!this.queue.isEmpty && this.queue.peek.value == value) {
+        val other = this.queue.poll()
+        columnSet.unionWith(other.columnSet)
+        this.requeue(other)
+      }
+      (value, columnSet)
+    }
+
+    override def close(): Unit = {
+      while (!this.queue.isEmpty) this.queue.poll().close()
+    }
+
+    private def requeue(reader: RunReader): Unit = {
+      reader.advance()
+      if (reader.value != null) this.queue.add(reader)
+    }
+
+  }
+
+}
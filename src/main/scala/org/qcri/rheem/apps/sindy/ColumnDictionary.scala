@@ -0,0 +1,96 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io.{BufferedReader, InputStreamReader}
+
+import org.qcri.rheem.core.api.exception.RheemException
+import org.qcri.rheem.core.util.fs.FileSystems
+
+/**
+  * Assigns each column of a set of CSV files a global, dense ID. The columns of each file occupy a contiguous ID range.
+  *
+  * @param files      the URLs of the CSV files
+  * @param offsets    the first column ID of each file
+  * @param numColumns the number of columns in each file
+  */
+class ColumnDictionary(val files: IndexedSeq[String], val offsets: IndexedSeq[Int], val numColumns: IndexedSeq[Int])
+  extends Serializable {
+
+  private val offsetArray = offsets.toArray
+
+  /**
+    * @return the total number of columns
+    */
+  def size: Int = if (files.isEmpty) 0 else offsets.last + numColumns.last
+
+  /**
+    * Resolves a column ID to a human-readable name.
+    *
+    * @param id the column ID
+    * @return the name in the form `<file URL>[<column index>]`
+    */
+  def resolve(id: Int): String = {
+    // Find the last file with an offset <= id. Files without columns share their offset with the next file, so that
+    // any of these duplicates but the last would be a wrong hit.
+    var (low, high) = (0, this.offsetArray.length)
+    while (low < high) {
+      val mid = (low + high) >>> 1
+      if (this.offsetArray(mid) <= id) low = mid + 1 else high = mid
+    }
+    val fileIndex = low - 1
+    if (fileIndex < 0 || id >= offsets(fileIndex) + numColumns(fileIndex)) s"???[$id]"
+    else s"${files(fileIndex)}[${id - offsets(fileIndex)}]"
+  }
+
+  /**
+    * Creates a new instance that additionally contains the columns of the given files, which obtain the IDs
+    * following the ones in this instance.
+    *
+    * @param newFiles  the URLs of the additional CSV files
+    * @param separator the CSV separator
+    * @return the new instance
+    */
+  def extend(newFiles: Seq[String], separator: Char): ColumnDictionary = {
+    val newNumColumns = newFiles.map(ColumnDictionary.countColumns(_, separator))
+    val newOffsets = newNumColumns.scanLeft(this.size)(_ + _).take(newNumColumns.size)
+    new ColumnDictionary(files ++ newFiles, offsets ++ newOffsets, numColumns ++ newNumColumns)
+  }
+
+}
+
+/**
+  * Companion object for [[ColumnDictionary]].
+  */
+object ColumnDictionary {
+
+  /**
+    * Creates a new instance by inspecting the first row of each file.
+    *
+    * @param files     the URLs of the CSV files
+    * @param separator the CSV separator
+    * @return the new instance
+    */
+  def create(files: Seq[String], separator: Char): ColumnDictionary = empty.extend(files, separator)
+
+  /**
+    * An instance without any columns.
+    */
+  val empty = new ColumnDictionary(IndexedSeq(), IndexedSeq(), IndexedSeq())
+
+  /**
+    * Counts the columns in the first row of a CSV file.
+    */
+  private[sindy] def countColumns(url: String, separator: Char): Int = {
+    val reader = new BufferedReader(new InputStreamReader(FileSystems.requireFileSystem(url).open(url), "UTF-8"))
+    try {
+      reader.readLine() match {
+        case null => 0
+        case row => row.split(java.util.regex.Pattern.quote(separator.toString), -1).length
+      }
+    } catch {
+      case e: Exception => throw new RheemException(s"Could not determine the columns of $url.", e)
+    } finally {
+      reader.close()
+    }
+  }
+
+}
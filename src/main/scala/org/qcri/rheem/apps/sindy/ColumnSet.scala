@@ -0,0 +1,269 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io.ObjectOutputStream
+
+/**
+  * A set of column IDs that supports in-place union and intersection. Small sets are stored as sorted arrays, while
+  * sets that are dense w.r.t. their largest column ID are stored as bitsets, whatever is more compact.
+  * <p>Instances can be frozen when they are shared among several data quanta; the mutating operations must then be
+  * applied to a [[ColumnSet#toMutable]] copy.</p>
+  */
+class ColumnSet private(private var ids: Array[Int],
+                        private var numIds: Int,
+                        private var words: Array[Long]) extends Serializable {
+
+  /**
+    * Whether this instance may no longer be modified.
+    */
+  private var frozen = false
+
+  /**
+    * @return the number of column IDs in this instance
+    */
+  def size: Int = this.numIds
+
+  /**
+    * @return whether this instance does not contain any column ID
+    */
+  def isEmpty: Boolean = this.numIds == 0
+
+  /**
+    * @return whether this instance is stored as a bitset
+    */
+  def isDense: Boolean = this.words != null
+
+  /**
+    * Tells whether this instance contains the given column ID.
+    */
+  def contains(id: Int): Boolean =
+    if (this.isDense) {
+      val wordIndex = id >> 6
+      wordIndex < this.words.length && (this.words(wordIndex) & (1L << id)) != 0
+    } else {
+      java.util.Arrays.binarySearch(this.ids, 0, this.numIds, id) >= 0
+    }
+
+  /**
+    * Applies a function to all column IDs in ascending order.
+    */
+  def foreach[U](f: Int => U): Unit =
+    if (this.isDense) {
+      var wordIndex = 0
+      while (wordIndex < this.words.length) {
+        var word = this.words(wordIndex)
+        while (word != 0) {
+          f((wordIndex << 6) + java.lang.Long.numberOfTrailingZeros(word))
+          word &= word - 1
+        }
+        wordIndex += 1
+      }
+    } else {
+      var i = 0
+      while (i < this.numIds) {
+        f(this.ids(i))
+        i += 1
+      }
+    }
+
+  /**
+    * @return the column IDs in ascending order
+    */
+  def toArray: Array[Int] = {
+    val array = new Array[Int](this.numIds)
+    var i = 0
+    this.foreach { id => array(i) = id; i += 1 }
+    array
+  }
+
+  /**
+    * Adds a single column ID to this instance.
+    *
+    * @return this instance
+    */
+  def add(id: Int): ColumnSet = {
+    this.ensureNotFrozen()
+    if (this.isDense) {
+      this.ensureWords((id >> 6) + 1)
+      if ((this.words(id >> 6) & (1L << id)) == 0) {
+        this.words(id >> 6) |= 1L << id
+        this.numIds += 1
+      }
+    } else {
+      val pos = java.util.Arrays.binarySearch(this.ids, 0, this.numIds, id)
+      if (pos < 0) {
+        val insertPos = -pos - 1
+        if (this.ids.length == this.numIds) this.ids = java.util.Arrays.copyOf(this.ids, math.max(4, 2 * this.numIds))
+        java.lang.System.arraycopy(this.ids, insertPos, this.ids, insertPos + 1, this.numIds - insertPos)
+        this.ids(insertPos) = id
+        this.numIds += 1
+        if (this.numIds > 2 * ((this.maxId >> 6) + 1)) this.densify(this.maxId)
+      }
+    }
+    this
+  }
+
+  /**
+    * Adds all column IDs of the given instance to this instance.
+    *
+    * @return this instance
+    */
+  def unionWith(that: ColumnSet): ColumnSet = {
+    this.ensureNotFrozen()
+    if (this.isDense || that.isDense) {
+      if (!this.isDense) this.densify(math.max(this.maxId, that.maxId))
+      if (that.isDense) {
+        this.ensureWords(that.words.length)
+        for (i <- that.words.indices) this.words(i) |= that.words(i)
+      } else {
+        this.ensureWords((that.maxId >> 6) + 1)
+        that.foreach(id => this.words(id >> 6) |= 1L << id)
+      }
+      this.numIds = this.words.foldLeft(0)((sum, word) => sum + java.lang.Long.bitCount(word))
+    } else {
+      this.mergeSorted(that.ids, that.numIds)
+      if (this.numIds > 2 * ((this.maxId >> 6) + 1)) this.densify(this.maxId)
+    }
+    this
+  }
+
+  /**
+    * Retains only those column IDs in this instance that are also contained in the given instance.
+    *
+    * @return this instance
+    */
+  def intersectWith(that: ColumnSet): ColumnSet = {
+    this.ensureNotFrozen()
+    if (this.isDense) {
+      if (that.isDense) {
+        for (i <- this.words.indices) {
+          this.words(i) &= (if (i < that.words.length) that.words(i) else 0L)
+        }
+      } else {
+        this.foreach(id => if (!that.contains(id)) this.words(id >> 6) &= ~(1L << id))
+      }
+      this.numIds = this.words.foldLeft(0)((sum, word) => sum + java.lang.Long.bitCount(word))
+    } else {
+      var newNumIds = 0
+      for (i <- 0 until this.numIds) {
+        if (that.contains(this.ids(i))) {
+          this.ids(newNumIds) = this.ids(i)
+          newNumIds += 1
+        }
+      }
+      this.numIds = newNumIds
+    }
+    this
+  }
+
+  /**
+    * Prevents further modifications of this instance.
+    *
+    * @return this instance
+    */
+  def freeze(): ColumnSet = {
+    this.frozen = true
+    this
+  }
+
+  /**
+    * @return this instance if it is not frozen or a modifiable copy otherwise
+    */
+  def toMutable: ColumnSet =
+    if (!this.frozen) this
+    else new ColumnSet(
+      if (this.ids == null) null else java.util.Arrays.copyOf(this.ids, this.numIds),
+      this.numIds,
+      if (this.words == null) null else this.words.clone()
+    )
+
+  /**
+    * @return the largest column ID in this instance or `-1` if it is empty
+    */
+  private def maxId: Int =
+    if (this.isDense) {
+      var wordIndex = this.words.length - 1
+      while (wordIndex >= 0 && this.words(wordIndex) == 0) wordIndex -= 1
+      if (wordIndex < 0) -1 else (wordIndex << 6) + 63 - java.lang.Long.numberOfLeadingZeros(this.words(wordIndex))
+    } else if (this.numIds == 0) -1
+    else this.ids(this.numIds - 1)
+
+  /**
+    * Merges sorted column IDs into the sorted [[ids]] by filling them from the back, so that no temporary array is
+    * needed unless the capacity of [[ids]] is exceeded.
+    */
+  private def mergeSorted(thatIds: Array[Int], thatNumIds: Int): Unit = {
+    val capacity = this.numIds + thatNumIds
+    if (this.ids.length < capacity) {
+      this.ids = java.util.Arrays.copyOf(this.ids, math.max(capacity, 2 * this.ids.length))
+    }
+    var (thisI, thatI, writeI) = (this.numIds - 1, thatNumIds - 1, capacity)
+    while (thisI >= 0 || thatI >= 0) {
+      val id =
+        if (thatI < 0 || (thisI >= 0 && this.ids(thisI) > thatIds(thatI))) {
+          thisI -= 1; this.ids(thisI + 1)
+        } else if (thisI < 0 || this.ids(thisI) < thatIds(thatI)) {
+          thatI -= 1; thatIds(thatI + 1)
+        } else {
+          thisI -= 1; thatI -= 1; thatIds(thatI + 1)
+        }
+      writeI -= 1
+      this.ids(writeI) = id
+    }
+    this.numIds = capacity - writeI
+    if (writeI > 0) java.lang.System.arraycopy(this.ids, writeI, this.ids, 0, this.numIds)
+  }
+
+  /**
+    * Converts this instance into a bitset.
+    */
+  private def densify(maxId: Int): Unit = {
+    val newWords = new Array[Long](math.max(0, (maxId >> 6) + 1))
+    this.foreach(id => newWords(id >> 6) |= 1L << id)
+    this.words = newWords
+    this.ids = null
+  }
+
+  private def ensureWords(numWords: Int): Unit = {
+    if (this.words.length < numWords) this.words = java.util.Arrays.copyOf(this.words, numWords)
+  }
+
+  private def ensureNotFrozen(): Unit = {
+    if (this.frozen) throw new IllegalStateException("Cannot modify a frozen column set.")
+  }
+
+  @throws[java.io.IOException]
+  private def writeObject(out: ObjectOutputStream): Unit = {
+    // Do not ship unused capacity.
+    if (this.ids != null && this.ids.length > this.numIds) this.ids = java.util.Arrays.copyOf(this.ids, this.numIds)
+    out.defaultWriteObject()
+  }
+
+  override def toString = this.toArray.mkString("{", ", ", "}")
+
+}
+
+/**
+  * Companion object for [[ColumnSet]].
+  */
+object ColumnSet {
+
+  /**
+    * Creates a new instance with a single column ID.
+    */
+  def apply(id: Int): ColumnSet = new ColumnSet(Array(id), 1, null)
+
+  /**
+    * Creates a new instance without column IDs.
+    */
+  def empty: ColumnSet = new ColumnSet(new Array[Int](4), 0, null)
+
+  /**
+    * Creates a new instance from distinct column IDs in ascending order. The array is not copied.
+    */
+  def fromSortedIds(ids: Array[Int]): ColumnSet = {
+    val columnSet = new ColumnSet(ids, ids.length, null)
+    if (ids.nonEmpty && ids.length > 2 * ((ids.last >> 6) + 1)) columnSet.densify(ids.last)
+    columnSet
+  }
+
+}
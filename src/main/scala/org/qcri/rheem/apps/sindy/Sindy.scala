@@ -6,8 +6,8 @@ import java.util
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
 import org.qcri.rheem.apps
-import org.qcri.rheem.apps.sindy.Sindy.{CellCreator, CellMerger, IndCandidateGenerator, IndCandidateMerger}
-import org.qcri.rheem.apps.util.{Parameters, ProfileDBHelper, StdOut}
+import org.qcri.rheem.apps.sindy.Sindy.{CellMerger, IncrementalIndCandidateGenerator, IndCandidateGenerator, IndCandidateMerger}
+import org.qcri.rheem.apps.util.{AppsKryo, Parameters, ProfileDBHelper, StdOut}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.function.FunctionDescriptor.{SerializableBinaryOperator, SerializableFunction}
 import org.qcri.rheem.core.plugin.Plugin
@@ -15,6 +15,9 @@ import org.qcri.rheem.core.util.fs.FileSystems
 
 /**
   * This is a Rheem-based implementation of the SINDY algorithm.
+  * <p>Note the configuration properties `rheem.apps.sindy.cells.memory`, which bounds the memory (in bytes) to
+  * collect the distinct values of a partition, and `rheem.apps.sindy.cells.spilldir`, which is the directory to spill
+  * the values to when that bound is exceeded.</p>
   */
 class Sindy(plugins: Plugin*) {
 
@@ -29,41 +32,125 @@ class Sindy(plugins: Plugin*) {
     */
   def apply(paths: Seq[String], seperator: Char = ';')
            (implicit configuration: Configuration, experiment: Experiment) = {
-    val rheemContext = new RheemContext(configuration)
-    plugins.foreach(rheemContext.register)
-    val planBuilder = new PlanBuilder(rheemContext)
-      .withJobName(s"Sindy ($paths)")
-      .withExperiment(experiment)
-      .withUdfJarsOf(classOf[Sindy])
+    val planBuilder = this.createPlanBuilder(s"Sindy ($paths)")
 
-    val fileColumnIdOffsets = paths.flatMap(resolveDirs).zipWithIndex.map { case (url, index) => (url, index * 1000) }
-    val allCells = fileColumnIdOffsets
-      .map { case (path, offset) =>
-        planBuilder
-          .readTextFile(path).withName(s"Load $path")
-          .flatMapJava(new CellCreator(offset, seperator)).withName(s"Create cells for $path")
-      }
+    val columnDictionary = ColumnDictionary.create(paths.flatMap(resolveDirs), seperator)
+    val allCells = columnDictionary.files.indices
+      .map(fileIndex => this.createCellGroups(planBuilder, columnDictionary, fileIndex, seperator))
       .reduce(_ union _)
 
     val rawInds = allCells
-      .map(cell => (cell._1, Array(cell._2))).withName("Prepare cell merging")
       .reduceByKeyJava(toSerializableFunction(_._1), new CellMerger).withName("Merge cells")
       .flatMapJava(new IndCandidateGenerator).withName("Generate IND candidate sets")
       .reduceByKeyJava(toSerializableFunction(_._1), new IndCandidateMerger).withName("Merge IND candidate sets")
-      .filter(_._2.length > 0).withName("Filter empty candidate sets")
+      .filter(_._2.size > 1).withName("Filter empty candidate sets")
       .collect()
 
-    def resolveColumnId(id: Int) = fileColumnIdOffsets
-      .find { case (file, offset) => offset <= id && offset + 1000 > id } match {
-      case Some((file, offset)) => s"$file[${id - offset}]"
-      case _ => s"???[$id]"
+    rawInds.map {
+      case (dep, refs) => (columnDictionary.resolve(dep), refs.toArray.filter(_ != dep).map(columnDictionary.resolve).toSeq)
     }
+  }
 
-    rawInds.map {
-      case (dep, refs) => (s"${resolveColumnId(dep)}", refs.map(resolveColumnId).toSeq)
+  /**
+    * Execute the SINDY algorithm incrementally: Only the input files that have not been processed in previous runs
+    * with the same `stateUrl` are read. Their distinct cells are materialized in the state directory, so that the
+    * already processed files need not be scanned again. Furthermore, only IND candidates that involve at least one
+    * new column are checked.
+    * <p>Note that this assumes already processed files not to change.</p>
+    *
+    * @param paths         input file or directory URLs
+    * @param stateUrl      URL of a directory to keep the state between the runs in
+    * @param seperator     CSV separator in the files
+    * @param configuration Rheem configuration
+    * @param experiment    the experiment to log measurements to
+    * @return all INDs among the processed files
+    */
+  def applyIncrementally(paths: Seq[String], stateUrl: String, seperator: Char = ';')
+                        (implicit configuration: Configuration, experiment: Experiment) = {
+    val state = SindyState.load(stateUrl)
+    val newFiles = paths.flatMap(resolveDirs).filterNot(state.columnDictionary.files.contains)
+    experiment.getSubject.addConfiguration("newInputs", newFiles.size)
+
+    val (columnDictionary, inds) = if (newFiles.isEmpty) (state.columnDictionary, state.inds) else {
+      val columnDictionary = state.columnDictionary.extend(newFiles, seperator)
+      val firstNewColumnId = state.columnDictionary.size
+
+      // Materialize the distinct cells of the new files.
+      val newCellUrls = for (fileIndex <- state.cellUrls.size until columnDictionary.files.size) yield {
+        val path = columnDictionary.files(fileIndex)
+        val cellUrl = s"${stateUrl.stripSuffix("/")}/cells-$fileIndex-${System.currentTimeMillis}"
+        this.createCellGroups(this.createPlanBuilder(s"Sindy (materialize $path)"), columnDictionary, fileIndex, seperator)
+          .reduceByKeyJava(toSerializableFunction(_._1), new CellMerger).withName(s"Merge cells of $path")
+          .writeTextFile(cellUrl, SindyState.formatCells)
+        cellUrl
+      }
+
+      // Check the IND candidates that involve new columns.
+      val planBuilder = this.createPlanBuilder(s"Sindy (incremental, ${newFiles.size} new files)")
+      val _firstNewColumnId = firstNewColumnId
+      val rawInds = (state.cellUrls ++ newCellUrls).flatMap(resolveDirs)
+        .map { cellUrl =>
+          planBuilder
+            .readTextFile(cellUrl).withName(s"Load $cellUrl")
+            .map(SindyState.parseCells).withName(s"Parse cells of $cellUrl")
+        }
+        .reduce(_ union _)
+        .reduceByKeyJava(toSerializableFunction(_._1), new CellMerger).withName("Merge cells")
+        .flatMapJava(new IncrementalIndCandidateGenerator(firstNewColumnId)).withName("Generate IND candidate sets")
+        .reduceByKeyJava(toSerializableFunction(_._1), new IndCandidateMerger).withName("Merge IND candidate sets")
+        .filter(indc => indc._2.size > (if (indc._1 >= _firstNewColumnId) 1 else 0)).withName("Filter empty candidate sets")
+        .collect()
+      val newInds = rawInds.map { case (dep, refs) => dep -> refs.toArray.filter(_ != dep) }.toMap
+
+      // Combine the new INDs with the ones among the old columns and save the state for the next run.
+      val allInds = (state.inds.keySet ++ newInds.keySet).map { dep =>
+        dep -> (state.inds.getOrElse(dep, Array[Int]()) ++ newInds.getOrElse(dep, Array[Int]())).sorted
+      }.toMap
+      new SindyState(columnDictionary, state.cellUrls ++ newCellUrls, allInds).save(stateUrl)
+      (columnDictionary, allInds)
+    }
+
+    inds.map {
+      case (dep, refs) => (columnDictionary.resolve(dep), refs.map(columnDictionary.resolve).toSeq)
     }
   }
 
+  /**
+    * Creates a new [[PlanBuilder]]. Each job requires its own one.
+    *
+    * @param jobName the name of the job
+    * @return the [[PlanBuilder]]
+    */
+  private def createPlanBuilder(jobName: String)(implicit configuration: Configuration, experiment: Experiment) = {
+    val rheemContext = new RheemContext(configuration)
+    plugins.foreach(rheemContext.register)
+    new PlanBuilder(rheemContext)
+      .withJobName(jobName)
+      .withExperiment(experiment)
+      .withUdfJarsOf(classOf[Sindy])
+  }
+
+  /**
+    * Reads a CSV file and creates its (partition-wise) cell groups.
+    *
+    * @param planBuilder      to create the operators with
+    * @param columnDictionary describes the CSV file
+    * @param fileIndex        the index of the CSV file in the `columnDictionary`
+    * @param seperator        CSV separator in the file
+    * @return the cell groups
+    */
+  private def createCellGroups(planBuilder: PlanBuilder, columnDictionary: ColumnDictionary, fileIndex: Int, seperator: Char)
+                              (implicit configuration: Configuration): DataQuanta[(String, ColumnSet)] = {
+    val memoryBudget = configuration.getLongProperty("rheem.apps.sindy.cells.memory", 256L * 1024 * 1024)
+    val spillDir = configuration.getStringProperty("rheem.apps.sindy.cells.spilldir", null)
+    val path = columnDictionary.files(fileIndex)
+    planBuilder
+      .readTextFile(path).withName(s"Load $path")
+      .mapPartitionsJava(new CellAggregator(
+        columnDictionary.offsets(fileIndex), columnDictionary.numColumns(fileIndex), seperator, memoryBudget, spillDir
+      )).withName(s"Create cell groups for $path")
+  }
+
   /**
     * If the given URL is a directory, list all its files recursively.
     *
@@ -88,11 +175,12 @@ object Sindy extends apps.util.ExperimentDescriptor {
   def main(args: Array[String]): Unit = {
     // Parse parameters.
     if (args.isEmpty) {
-      sys.error(s"Usage: <main class> ${Parameters.experimentHelp} <plugin>(,<plugin>)* <CSV separator> <input URL>(;<input URL>)*")
+      sys.error(s"Usage: <main class> ${Parameters.experimentHelp} <plugin>(,<plugin>)* <CSV separator> <input URL>(;<input URL>)* [<state URL>]")
       sys.exit(1)
     }
 
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     implicit val experiment = Parameters.createExperiment(args(0), this)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
@@ -107,12 +195,16 @@ object Sindy extends apps.util.ExperimentDescriptor {
     }
     val inputUrls = args(3).split(";")
     experiment.getSubject.addConfiguration("inputs", inputUrls)
+    val stateUrl = if (args.length > 4) args(4) else null
+    if (stateUrl != null) experiment.getSubject.addConfiguration("state", stateUrl)
 
     // Prepare the PageRank.
     val sindy = new Sindy(plugins: _*)
 
     // Run the PageRank.
-    val inds = sindy(inputUrls.toSeq, separator).toSeq
+    val inds =
+      if (stateUrl == null) sindy(inputUrls.toSeq, separator).toSeq
+      else sindy.applyIncrementally(inputUrls.toSeq, stateUrl, separator).toSeq
 
     // Store experiment data.
     val inputFileSizes = inputUrls.map(url => FileSystems.getFileSize(url))
@@ -125,54 +217,47 @@ object Sindy extends apps.util.ExperimentDescriptor {
   }
 
   /**
-    * UDF to parse a CSV row and create cells.
-    *
-    * @param offset the column ID offset for the input CSV rows
+    * UDF to merge the column IDs of two cells.
     */
-  class CellCreator(val offset: Int, val separator: Char) extends SerializableFunction[String, java.lang.Iterable[(String, Int)]] {
-
-    override def apply(row: String): Iterable[(String, Int)] = {
-      val fields = row.split(separator)
-      val cells = new util.ArrayList[(String, Int)](fields.length)
-      var columnId = offset
-      for (field <- fields) {
-        cells.add((field, columnId))
-        columnId += 1
-      }
-      cells
-    }
+  class CellMerger extends SerializableBinaryOperator[(String, ColumnSet)] {
+
+    override def apply(cell1: (String, ColumnSet), cell2: (String, ColumnSet)): (String, ColumnSet) =
+      (cell1._1, cell1._2.toMutable.unionWith(cell2._2))
+
   }
 
   /**
-    * UDF to merge the column IDs of two cells.
+    * UDF to create IND candidates from a cell group. All candidates share the cell group's [[ColumnSet]], which
+    * therefore also contains the dependent column itself.
     */
-  class CellMerger extends SerializableBinaryOperator[(String, Array[Int])] {
-
-    import scala.collection.mutable
-
-    lazy val merger = mutable.Set[Int]()
+  class IndCandidateGenerator extends SerializableFunction[(String, ColumnSet), java.lang.Iterable[(Int, ColumnSet)]] {
 
-    override def apply(cell1: (String, Array[Int]), cell2: (String, Array[Int])): (String, Array[Int]) = {
-      merger.clear()
-      for (columnId <- cell1._2) merger += columnId
-      for (columnId <- cell2._2) merger += columnId
-      (cell1._1, merger.toArray)
+    override def apply(cellGroup: (String, ColumnSet)): java.lang.Iterable[(Int, ColumnSet)] = {
+      val columnIds = cellGroup._2.freeze()
+      val result = new util.ArrayList[(Int, ColumnSet)](columnIds.size)
+      columnIds.foreach(columnId => result.add((columnId, columnIds)))
+      result
     }
   }
 
   /**
-    * UDF to create IND candidates from a cell group.
+    * UDF to create IND candidates from a cell group in an incremental run. Candidates whose dependent column is
+    * new are created as by the [[IndCandidateGenerator]]. For old dependent columns, the INDs among old columns are
+    * already known, so they are only paired with the new columns of the cell group.
+    *
+    * @param firstNewColumnId all column IDs from this one on belong to new columns
     */
-  class IndCandidateGenerator extends SerializableFunction[(String, Array[Int]), java.lang.Iterable[(Int, Array[Int])]] {
-
-    override def apply(cellGroup: (String, Array[Int])): java.lang.Iterable[(Int, Array[Int])] = {
-      val columnIds = cellGroup._2
-      val result = new util.ArrayList[(Int, Array[Int])](columnIds.length)
-      for (i <- columnIds.indices) {
-        val refColumnIds = new Array[Int](columnIds.length - 1)
-        java.lang.System.arraycopy(columnIds, 0, refColumnIds, 0, i)
-        java.lang.System.arraycopy(columnIds, i + 1, refColumnIds, i, refColumnIds.length - i)
-        result.add((columnIds(i), refColumnIds))
+  class IncrementalIndCandidateGenerator(val firstNewColumnId: Int)
+    extends SerializableFunction[(String, ColumnSet), java.lang.Iterable[(Int, ColumnSet)]] {
+
+    override def apply(cellGroup: (String, ColumnSet)): java.lang.Iterable[(Int, ColumnSet)] = {
+      val columnIds = cellGroup._2.freeze()
+      val newColumnIds = ColumnSet.empty
+      columnIds.foreach(columnId => if (columnId >= firstNewColumnId) newColumnIds.add(columnId))
+      newColumnIds.freeze()
+      val result = new util.ArrayList[(Int, ColumnSet)](columnIds.size)
+      columnIds.foreach { columnId =>
+        result.add((columnId, if (columnId >= firstNewColumnId) columnIds else newColumnIds))
       }
       result
     }
@@ -181,17 +266,10 @@ object Sindy extends apps.util.ExperimentDescriptor {
   /**
     * UDF to merge two IND candidates.
     */
-  class IndCandidateMerger extends SerializableBinaryOperator[(Int, Array[Int])] {
-
-    import scala.collection.mutable
+  class IndCandidateMerger extends SerializableBinaryOperator[(Int, ColumnSet)] {
 
-    lazy val merger = mutable.Set[Int]()
-
-    override def apply(indc1: (Int, Array[Int]), indc2: (Int, Array[Int])): (Int, Array[Int]) = {
-      merger.clear()
-      for (columnId <- indc1._2) merger += columnId
-      (indc1._1, indc2._2.filter(merger.contains))
-    }
+    override def apply(indc1: (Int, ColumnSet), indc2: (Int, ColumnSet)): (Int, ColumnSet) =
+      (indc1._1, indc1._2.toMutable.intersectWith(indc2._2))
 
   }
 
@@ -0,0 +1,176 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io.{BufferedReader, InputStreamReader, OutputStreamWriter, PrintWriter}
+
+import org.qcri.rheem.core.api.exception.RheemException
+import org.qcri.rheem.core.util.fs.FileSystems
+
+import scala.collection.JavaConversions._
+
+/**
+  * What an incremental [[Sindy]] run leaves behind for the next one: the already processed files with their
+  * columns, the distinct cells of each of these files, and the INDs among their columns.
+  *
+  * @param columnDictionary describes the already processed files
+  * @param cellUrls         for each file in the `columnDictionary`, the URL of its materialized cells
+  * @param inds             the INDs among the columns in the `columnDictionary`, as column IDs
+  */
+class SindyState(val columnDictionary: ColumnDictionary,
+                 val cellUrls: IndexedSeq[String],
+                 val inds: Map[Int, Array[Int]]) {
+
+  /**
+    * Writes this instance. Rheem's file systems cannot rename files, so each save goes to a new state file that is
+    * completed by an `end` line with the number of preceding lines. [[SindyState.load]] picks the latest complete
+    * state file, so that a crash while saving leaves the previous state in effect.
+    *
+    * @param stateUrl the URL of the state directory
+    */
+  def save(stateUrl: String): Unit = {
+    val url = s"${stateUrl.stripSuffix("/")}/${SindyState.stateFilePrefix}${System.currentTimeMillis}${SindyState.stateFileSuffix}"
+    val writer = new PrintWriter(new OutputStreamWriter(FileSystems.requireFileSystem(url).create(url, true), "UTF-8"))
+    try {
+      var numLines = 0
+      for (i <- columnDictionary.files.indices) {
+        writer.println(s"file\t${columnDictionary.offsets(i)}\t${columnDictionary.numColumns(i)}\t" +
+          s"${columnDictionary.files(i)}\t${cellUrls(i)}")
+        numLines += 1
+      }
+      for ((dep, refs) <- inds.toSeq.sortBy(_._1)) {
+        writer.println(s"ind\t$dep\t${refs.mkString(",")}")
+        numLines += 1
+      }
+      writer.println(s"end\t$numLines")
+      if (writer.checkError()) throw new RheemException(s"Could not write $url.")
+    } finally {
+      writer.close()
+    }
+  }
+
+}
+
+/**
+  * Companion object for [[SindyState]].
+  */
+object SindyState {
+
+  /**
+    * The state of a run that has not processed any files yet.
+    */
+  val empty = new SindyState(ColumnDictionary.empty, IndexedSeq(), Map())
+
+  /**
+    * Loads an instance.
+    *
+    * @param stateUrl the URL of the state directory
+    * @return the loaded instance or [[empty]] if there is no saved state
+    */
+  def load(stateUrl: String): SindyState = {
+    val fs = FileSystems.requireFileSystem(stateUrl)
+    if (!fs.isDirectory(stateUrl)) return empty
+
+    // Try the state files from the latest to the oldest one until we find a complete one.
+    val stateFileUrls = fs.listChildren(stateUrl).toSeq
+      .filter { url =>
+        val name = url.substring(url.lastIndexOf('/') + 1)
+        name.startsWith(stateFilePrefix) && name.endsWith(stateFileSuffix)
+      }
+      .sortBy(url => url.substring(url.lastIndexOf(stateFilePrefix) + stateFilePrefix.length).stripSuffix(stateFileSuffix).toLong)
+      .reverse
+    stateFileUrls.iterator.map(loadFile).collectFirst { case Some(state) => state }.getOrElse(empty)
+  }
+
+  /**
+    * Loads a state file.
+    *
+    * @param url the URL of the state file
+    * @return the loaded instance or [[None]] if the file is incomplete
+    */
+  private def loadFile(url: String): Option[SindyState] = {
+    val (files, offsets, numColumns, cellUrls) = (
+      IndexedSeq.newBuilder[String], IndexedSeq.newBuilder[Int], IndexedSeq.newBuilder[Int], IndexedSeq.newBuilder[String]
+    )
+    val inds = Map.newBuilder[Int, Array[Int]]
+    var numLines = 0
+    var isComplete = false
+    val reader = new BufferedReader(new InputStreamReader(FileSystems.requireFileSystem(url).open(url), "UTF-8"))
+    try {
+      var line = reader.readLine()
+      while (line != null && !isComplete) {
+        line.split('\t') match {
+          case Array("file", offset, numCols, file, cellUrl) =>
+            offsets += offset.toInt
+            numColumns += numCols.toInt
+            files += file
+            cellUrls += cellUrl
+          case Array("ind", dep, refs) => inds += dep.toInt -> refs.split(',').map(_.toInt)
+          case Array("end", expectedNumLines) if expectedNumLines.toInt == numLines => isComplete = true
+          case _ => throw new RheemException(s"Illegal line in $url: $line")
+        }
+        numLines += 1
+        line = reader.readLine()
+      }
+    } finally {
+      reader.close()
+    }
+
+    if (!isComplete) {
+      println(s"Ignoring the incomplete Sindy state in $url.")
+      None
+    } else {
+      Some(new SindyState(new ColumnDictionary(files.result(), offsets.result(), numColumns.result()), cellUrls.result(), inds.result()))
+    }
+  }
+
+  /**
+    * Formats a cell group for materialization. Backslashes, tabs, and line breaks in the value are escaped, so that
+    * each cell group occupies exactly one line.
+    */
+  def formatCells(cells: (String, ColumnSet)): String = {
+    val value = cells._1
+    val sb = new java.lang.StringBuilder(value.length + 16)
+    sb.append(cells._2.toArray.mkString(",")).append('\t')
+    var i = 0
+    while (i < value.length) {
+      value.charAt(i) match {
+        case '\\' => sb.append("\\\\")
+        case '\t' => sb.append("\\t")
+        case '\n' => sb.append("\\n")
+        case '\r' => sb.append("\\r")
+        case c => sb.append(c)
+      }
+      i += 1
+    }
+    sb.toString
+  }
+
+  /**
+    * Parses a cell group formatted with [[formatCells]].
+    */
+  def parseCells(line: String): (String, ColumnSet) = {
+    val tabPos = line.indexOf('\t')
+    val columnSet = ColumnSet.empty
+    for (columnId <- line.substring(0, tabPos).split(',')) columnSet.add(columnId.toInt)
+    val sb = new java.lang.StringBuilder(line.length - tabPos)
+    var i = tabPos + 1
+    while (i < line.length) {
+      val c = line.charAt(i)
+      if (c == '\\' && i + 1 < line.length) {
+        i += 1
+        sb.append(line.charAt(i) match {
+          case 't' => '\t'
+          case 'n' => '\n'
+          case 'r' => '\r'
+          case other => other
+        })
+      } else sb.append(c)
+      i += 1
+    }
+    (sb.toString, columnSet)
+  }
+
+  private val stateFilePrefix = "sindy-state-"
+
+  private val stateFileSuffix = ".tsv"
+
+}
@@ -2,8 +2,10 @@ package org.qcri.rheem.apps.tpch
 
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.apps.tpch.queries.{Query1, Query3Database, Query3File, Query3Hybrid}
-import org.qcri.rheem.apps.util.{Parameters, ProfileDBHelper, StdOut}
+import org.qcri.rheem.apps.util.{AppsKryo, Instrumentation, Parameters, ProfileDBHelper, StdOut}
 import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.core.plugin.Plugin
+import org.qcri.rheem.jdbc.operators.JdbcTableSource
 import org.qcri.rheem.jdbc.platform.JdbcPlatformTemplate
 import org.qcri.rheem.postgres.Postgres
 import org.qcri.rheem.postgres.operators.PostgresTableSource
@@ -16,6 +18,38 @@ import scala.collection.JavaConversions._
   */
 object TpcH {
 
+  /**
+    * Finds the database among the platforms of the given [[Plugin]]s.
+    *
+    * @return the [[JdbcPlatformTemplate]] or `null` if there is none
+    */
+  def findJdbcPlatform(plugins: Seq[Plugin]): JdbcPlatformTemplate = {
+    val jdbcPlatforms = plugins
+      .flatMap(_.getRequiredPlatforms)
+      .filter(_.isInstanceOf[JdbcPlatformTemplate])
+      .distinct
+    if (jdbcPlatforms.size == 1) jdbcPlatforms.head.asInstanceOf[JdbcPlatformTemplate]
+    else if (jdbcPlatforms.isEmpty) null
+    else throw new IllegalArgumentException(s"Detected multiple databases: ${jdbcPlatforms.mkString(", ")}.")
+  }
+
+  /**
+    * Provides a function to create [[JdbcTableSource]]s for the given database.
+    *
+    * @param jdbcPlatform the [[JdbcPlatformTemplate]] or `null`
+    * @return a function that creates [[JdbcTableSource]]s from a table name and its columns
+    */
+  def createTableSourceFactory(jdbcPlatform: JdbcPlatformTemplate): (String, Seq[String]) => JdbcTableSource =
+    if (jdbcPlatform == null) {
+      (table: String, columns: Seq[String]) => throw new IllegalStateException("No database plugin detected.")
+    } else if (jdbcPlatform.equals(Sqlite3.platform)) {
+      (table: String, columns: Seq[String]) => new Sqlite3TableSource(table, columns: _*)
+    } else if (jdbcPlatform.equals(Postgres.platform)) {
+      (table: String, columns: Seq[String]) => new PostgresTableSource(table, columns: _*)
+    } else {
+      throw new IllegalArgumentException(s"Unsupported database: $jdbcPlatform.")
+    }
+
   def main(args: Array[String]): Unit = {
     if (args.isEmpty) {
       println(s"Usage: <main class> ${Parameters.experimentHelp} <plugin(,plugin)*> <TPC-H config URL> <query> [<query args>*]")
@@ -27,29 +61,13 @@ object TpcH {
     val configUrl = args(2)
     val queryName = args(3)
 
-    val jdbcPlatform = {
-      val jdbcPlatforms = plugins
-        .flatMap(_.getRequiredPlatforms)
-        .filter(_.isInstanceOf[JdbcPlatformTemplate])
-        .distinct
-      if (jdbcPlatforms.size == 1) jdbcPlatforms.head.asInstanceOf[JdbcPlatformTemplate]
-      else if (jdbcPlatforms.isEmpty) null
-      else throw new IllegalArgumentException(s"Detected multiple databases: ${jdbcPlatforms.mkString(", ")}.")
-    }
-
-    val createTableSource =
-      if (jdbcPlatform == null) {
-        (table: String, columns: Seq[String]) => throw new IllegalStateException("No database plugin detected.")
-      } else if (jdbcPlatform.equals(Sqlite3.platform)) {
-        (table: String, columns: Seq[String]) => new Sqlite3TableSource(table, columns: _*)
-      } else if (jdbcPlatform.equals(Postgres.platform)) {
-        (table: String, columns: Seq[String]) => new PostgresTableSource(table, columns: _*)
-      } else {
-        throw new IllegalArgumentException(s"Unsupported database: $jdbcPlatform.")
-      }
+    val jdbcPlatform = findJdbcPlatform(plugins)
+    val createTableSource = createTableSourceFactory(jdbcPlatform)
 
     val configuration = new Configuration
     configuration.load(configUrl)
+    AppsKryo.enable(configuration)
+    Instrumentation.start(configuration)
 
     var experiment: Experiment = null
     queryName match {
@@ -88,6 +106,7 @@ object TpcH {
     }
 
     // Store experiment data.
+    Instrumentation.stop(experiment)
     ProfileDBHelper.store(experiment, configuration)
   }
 
@@ -44,11 +44,23 @@ class Query1(plugins: Plugin*) extends ExperimentDescriptor {
   def apply(configuration: Configuration,
             jdbcPlatform: JdbcPlatformTemplate,
             createTableSource: (String, Seq[String]) => JdbcTableSource,
-            delta: Int = 90)
+            delta: Int = Query1.defaultDelta)
            (implicit experiment: Experiment): Iterable[Query1.Result] = {
-
     val rheemCtx = new RheemContext(configuration)
     plugins.foreach(rheemCtx.register)
+    this.apply(rheemCtx, jdbcPlatform, createTableSource, delta)
+  }
+
+  /**
+    * Runs the query on the given [[RheemContext]], e.g., to share it among several queries. The [[Plugin]]s of this
+    * instance are not registered with it.
+    */
+  def apply(rheemCtx: RheemContext,
+            jdbcPlatform: JdbcPlatformTemplate,
+            createTableSource: (String, Seq[String]) => JdbcTableSource,
+            delta: Int)
+           (implicit experiment: Experiment): Iterable[Query1.Result] = {
+    val configuration = rheemCtx.getConfiguration
     val planBuilder = new PlanBuilder(rheemCtx)
       .withJobName(s"TPC-H (${this.getClass.getSimpleName})")
       .withUdfJarsOf(classOf[Query1])
@@ -123,6 +135,11 @@ class Query1(plugins: Plugin*) extends ExperimentDescriptor {
 
 object Query1 {
 
+  /**
+    * The default number of days before 1998-12-01 up to which line items are considered.
+    */
+  val defaultDelta = 90
+
   case class Result(l_returnflag: String,
                     l_linestatus: String,
                     sum_qty: Double,
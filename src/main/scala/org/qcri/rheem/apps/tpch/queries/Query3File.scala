@@ -4,7 +4,7 @@ import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
 import org.qcri.rheem.apps.tpch.CsvUtils
 import org.qcri.rheem.apps.tpch.data.{Customer, LineItem, Order}
-import org.qcri.rheem.apps.util.ExperimentDescriptor
+import org.qcri.rheem.apps.util.{ExperimentDescriptor, Instrumentation}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.plugin.Plugin
 
@@ -62,13 +62,16 @@ class Query3File(plugins: Plugin*) extends ExperimentDescriptor {
     experiment.getSubject.addConfiguration("segment", segment)
     experiment.getSubject.addConfiguration("date", date)
 
+    // Name the instrumented operators, so that their measurements can be matched.
+    val (parseCustomers, parseOrders, parseLineItems) = ("Parse customers", "Parse orders", "Parse line items")
+
     // Read, filter, and project the customer data.
     val _segment = segment
     val customerKeys = planBuilder
       .readTextFile(customerFile)
       .withName("Read customers")
-      .map(Customer.parseCsv)
-      .withName("Parse customers")
+      .map(Instrumentation.wrap(parseCustomers, Customer.parseCsv _))
+      .withName(parseCustomers)
 
       .filter(_.mktSegment == _segment, selectivity = .25)
       .withName("Filter customers")
@@ -81,8 +84,8 @@ class Query3File(plugins: Plugin*) extends ExperimentDescriptor {
     val orders = planBuilder
       .readTextFile(ordersFile)
       .withName("Read orders")
-      .map(Order.parseCsv)
-      .withName("Parse orders")
+      .map(Instrumentation.wrap(parseOrders, Order.parseCsv _))
+      .withName(parseOrders)
 
       .filter(_.orderDate < _date)
       .withName("Filter orders")
@@ -94,8 +97,8 @@ class Query3File(plugins: Plugin*) extends ExperimentDescriptor {
     val lineItems = planBuilder
       .readTextFile(lineitemFile)
       .withName("Read line items")
-      .map(LineItem.parseCsv)
-      .withName("Parse line items")
+      .map(Instrumentation.wrap(parseLineItems, LineItem.parseCsv _))
+      .withName(parseLineItems)
 
       .filter(_.shipDate > _date)
       .withName("Filter line items")
@@ -0,0 +1,48 @@
+package org.qcri.rheem.apps.util
+
+import org.qcri.rheem.core.api.Configuration
+
+/**
+  * Lets Spark serialize the data types of the apps with Kryo. The serializers reside in the `AppsKryoRegistrator`,
+  * which depends on Spark and is thus compiled only with the `standalone` profile. Therefore, it is referenced by its
+  * name only.
+  */
+object AppsKryo {
+
+  /**
+    * The name of the Spark `KryoRegistrator` for the data types of the apps.
+    */
+  val registratorClassName = "org.qcri.rheem.apps.util.AppsKryoRegistrator"
+
+  /**
+    * Lets Spark use Kryo along with the `AppsKryoRegistrator` if the property `rheem.apps.kryo` is `true` (default:
+    * `false`). A serializer or registrator that is specified in the `configuration` is retained.
+    *
+    * @param configuration the [[Configuration]] that Rheem passes on to Spark
+    */
+  def enable(configuration: Configuration): Unit = {
+    if (!configuration.getStringProperty("rheem.apps.kryo", "false").toBoolean) return
+    if (!this.isRegistratorAvailable) {
+      println(s"Not enabling Kryo, as $registratorClassName is missing. Build with the standalone profile to include it.")
+      return
+    }
+    if (configuration.getStringProperty("spark.serializer", null) == null) {
+      configuration.getProperties.set("spark.serializer", "org.apache.spark.serializer.KryoSerializer")
+    }
+    if (configuration.getStringProperty("spark.kryo.registrator", null) == null) {
+      configuration.getProperties.set("spark.kryo.registrator", registratorClassName)
+    }
+  }
+
+  /**
+    * @return whether the `AppsKryoRegistrator` is on the classpath
+    */
+  private[util] def isRegistratorAvailable: Boolean =
+    try {
+      Class.forName(registratorClassName, false, this.getClass.getClassLoader)
+      true
+    } catch {
+      case _: ClassNotFoundException => false
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.qcri.rheem.apps.util
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.{Function => JavaFunction}
+
+import org.qcri.rheem.core.function.ExecutionContext
+
+import scala.collection.JavaConversions._
+
+/**
+  * Keeps lookup structures that UDFs derive from broadcasts, so that they are built once per JVM rather than in every
+  * `open` call, i.e., for every partition and iteration.
+  * <p>The entries are keyed by the very broadcast instance, the kind of structure, and the iteration. Hence, jobs that
+  * run in the same JVM and use the same broadcast names do not evict each other's entries. An entry is evicted as soon
+  * as its broadcast has been garbage-collected, i.e., its job has ended, or a later iteration asks for the same
+  * structure of the same broadcast. Apps should additionally [[clear]] the cache when their job is done.</p>
+  */
+object BroadcastCache {
+
+  /**
+    * Identifies a cached structure. It references its broadcast only weakly and compares it by identity.
+    */
+  private class Key(broadcast: AnyRef, val kind: String, val iteration: Int) {
+
+    private val broadcastReference = new WeakReference(broadcast)
+
+    private val broadcastHashCode = System.identityHashCode(broadcast)
+
+    def isStale: Boolean = this.broadcastReference.get == null
+
+    /**
+      * Tells whether this instance describes the same structure as `that` for an earlier iteration.
+      */
+    def isSupersededBy(that: Key): Boolean =
+      this.isForSameStructure(that) && this.iteration < that.iteration
+
+    private def isForSameStructure(that: Key): Boolean = {
+      val broadcast = this.broadcastReference.get
+      broadcast != null && (broadcast eq that.broadcastReference.get) && this.kind == that.kind
+    }
+
+    override def equals(obj: Any): Boolean = obj match {
+      case that: Key => (this eq that) || (this.isForSameStructure(that) && this.iteration == that.iteration)
+      case _ => false
+    }
+
+    override def hashCode: Int = (this.broadcastHashCode * 31 + this.kind.hashCode) * 31 + this.iteration
+
+  }
+
+  private val entries = new ConcurrentHashMap[Key, AnyRef]
+
+  /**
+    * Retrieves the structure derived from a broadcast in the current iteration or builds it.
+    *
+    * @param ctx           provides the broadcast and the current iteration
+    * @param broadcastName the name of the broadcast
+    * @param kind          distinguishes different structures derived from the same broadcast
+    * @param create        builds the structure from the broadcast
+    * @return the cached or newly built structure
+    */
+  def getOrCreate[T, R <: AnyRef](ctx: ExecutionContext, broadcastName: String, kind: String)
+                                 (create: java.util.Collection[T] => R): R =
+    this.getOrCreate(ctx.getBroadcast[T](broadcastName), ctx.getCurrentIteration, broadcastName, kind)(create)
+
+  /**
+    * Retrieves the structure derived from a broadcast in some iteration or builds it.
+    *
+    * @see #getOrCreate
+    */
+  def getOrCreate[T, R <: AnyRef](broadcast: java.util.Collection[T], iteration: Int, broadcastName: String, kind: String)
+                                 (create: java.util.Collection[T] => R): R = {
+    val key = new Key(broadcast, s"$kind:$broadcastName", iteration)
+    this.evictEntries(key)
+    // Only a single thread builds the structure, while the others wait for it.
+    this.entries.computeIfAbsent(key, new JavaFunction[Key, AnyRef] {
+      override def apply(key: Key): AnyRef = create(broadcast)
+    }).asInstanceOf[R]
+  }
+
+  /**
+    * @return the number of cached structures
+    */
+  def size: Int = this.entries.size
+
+  /**
+    * Evicts all cached structures.
+    */
+  def clear(): Unit = this.entries.clear()
+
+  /**
+    * Evicts the entries whose broadcast has been garbage-collected and those that `key` supersedes.
+    */
+  private def evictEntries(key: Key): Unit =
+    for (cachedKey <- this.entries.keySet.toSeq; if cachedKey.isStale || cachedKey.isSupersededBy(key)) {
+      this.entries.remove(cachedKey)
+    }
+
+}
@@ -0,0 +1,198 @@
+package org.qcri.rheem.apps.util
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+import de.hpi.isg.profiledb.store.model.Experiment
+import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.core.function.ExecutionContext
+import org.qcri.rheem.core.function.FunctionDescriptor.ExtendedSerializableFunction
+
+import scala.collection.JavaConversions._
+
+/**
+  * Measures the invocations, CPU time, and allocated bytes of app UDFs per operator as well as the garbage collections
+  * during a run. It is enabled via the property `rheem.apps.instrumentation`.
+  * <p>UDFs are instrumented by wrapping them with one of the `wrap` methods while the plan is built. If the
+  * instrumentation is disabled at that point, these methods return the UDFs as-is, so that there is no overhead at
+  * all. Note that the numbers are collected in the JVM that executes the UDFs, i.e., UDFs that run on remote
+  * executors are not accounted for. Also, lazily evaluated UDF results are accounted for only up to their creation.</p>
+  */
+object Instrumentation {
+
+  /**
+    * Collects the measurements for a single operator.
+    */
+  class OperatorStatistics {
+
+    val invocations, cpuNanos, allocatedBytes = new LongAdder
+
+  }
+
+  /**
+    * Whether UDFs should be instrumented.
+    */
+  @volatile private var isEnabled = false
+
+  private val statistics = new ConcurrentHashMap[String, OperatorStatistics]
+
+  private var gcCollectionsAtStart, gcMillisAtStart = 0L
+
+  private lazy val threadMXBean = ManagementFactory.getThreadMXBean match {
+    case bean: com.sun.management.ThreadMXBean if bean.isThreadAllocatedMemorySupported =>
+      bean.setThreadAllocatedMemoryEnabled(true)
+      bean
+    case bean =>
+      bean
+  }
+
+  /**
+    * Starts a new run, thereby discarding any previous measurements.
+    *
+    * @param configuration tells whether the instrumentation is enabled
+    */
+  def start(configuration: Configuration): Unit = {
+    this.isEnabled = configuration.getStringProperty("rheem.apps.instrumentation", "false").toBoolean
+    this.statistics.clear()
+    if (this.isEnabled) {
+      this.gcCollectionsAtStart = this.gcCollections
+      this.gcMillisAtStart = this.gcMillis
+    }
+  }
+
+  /**
+    * Ends the current run and adds its measurements to the [[Experiment]], i.e., a [[ValuesMeasurement]] for each
+    * operator that is named like the operator and one for the GC named `gc`. The latter reports the collection time as
+    * accounted by the collectors, which includes the concurrent phases of collectors such as CMS and G1, i.e., it is an
+    * upper bound for the GC pauses rather than the pause time itself.
+    *
+    * @param experiment the [[Experiment]]
+    */
+  def stop(experiment: Experiment): Unit = {
+    if (!this.isEnabled) return
+    this.isEnabled = false
+    for ((name, operatorStatistics) <- this.statistics.toSeq.sortBy(_._1)) {
+      val measurement = ValuesMeasurement.addTo(experiment, name,
+        "invocations" -> operatorStatistics.invocations.sum,
+        "cpuMillis" -> operatorStatistics.cpuNanos.sum / 1000000d
+      )
+      if (this.isMeasuringAllocations) measurement.add("allocatedBytes", operatorStatistics.allocatedBytes.sum)
+    }
+    ValuesMeasurement.addTo(experiment, "gc",
+      "collections" -> (this.gcCollections - this.gcCollectionsAtStart),
+      "collectionMillis" -> (this.gcMillis - this.gcMillisAtStart)
+    )
+  }
+
+  /**
+    * Instruments a UDF.
+    *
+    * @param name the name of the operator that runs the UDF
+    * @param udf  the UDF
+    * @return the instrumented UDF or `udf` if the instrumentation is disabled
+    */
+  def wrap[In, Out](name: String, udf: In => Out): In => Out =
+    if (this.isEnabled) new InstrumentedFunction(name, udf) else udf
+
+  /**
+    * Instruments a binary UDF, e.g., for a reduction.
+    *
+    * @see #wrap
+    */
+  def wrap2[In1, In2, Out](name: String, udf: (In1, In2) => Out): (In1, In2) => Out =
+    if (this.isEnabled) new InstrumentedFunction2(name, udf) else udf
+
+  /**
+    * Instruments the key extractor of an operator, e.g., of a reduction. Its measurements are named like the operator
+    * with a ` (key)` suffix, so that they are not mixed up with those of the operator's main UDF.
+    *
+    * @see #wrap
+    */
+  def wrapKey[In, Key](name: String, keyUdf: In => Key): In => Key = this.wrap(s"$name (key)", keyUdf)
+
+  /**
+    * Instruments an [[ExtendedSerializableFunction]].
+    *
+    * @see #wrap
+    */
+  def wrapJava[In, Out](name: String, udf: ExtendedSerializableFunction[In, Out]): ExtendedSerializableFunction[In, Out] =
+    if (this.isEnabled) new InstrumentedExtendedFunction(name, udf) else udf
+
+  /**
+    * Retrieves the measurements of an operator in this JVM.
+    *
+    * @param name the name of the operator
+    * @return the [[OperatorStatistics]]
+    */
+  def getStatistics(name: String): OperatorStatistics = {
+    val operatorStatistics = this.statistics.get(name)
+    if (operatorStatistics != null) operatorStatistics
+    else {
+      this.statistics.putIfAbsent(name, new OperatorStatistics)
+      this.statistics.get(name)
+    }
+  }
+
+  private def isMeasuringAllocations = this.threadMXBean.isInstanceOf[com.sun.management.ThreadMXBean]
+
+  /**
+    * Measures a UDF invocation.
+    */
+  private[util] def measure[T](operatorStatistics: OperatorStatistics, invocation: => T): T = {
+    val threadId = Thread.currentThread.getId
+    val (cpuStart, allocationStart) = (this.threadMXBean.getCurrentThreadCpuTime, this.allocatedBytes(threadId))
+    try invocation finally {
+      operatorStatistics.invocations.increment()
+      operatorStatistics.cpuNanos.add(this.threadMXBean.getCurrentThreadCpuTime - cpuStart)
+      operatorStatistics.allocatedBytes.add(this.allocatedBytes(threadId) - allocationStart)
+    }
+  }
+
+  private def allocatedBytes(threadId: Long) = this.threadMXBean match {
+    case bean: com.sun.management.ThreadMXBean => bean.getThreadAllocatedBytes(threadId)
+    case _ => 0L
+  }
+
+  private def gcCollections = ManagementFactory.getGarbageCollectorMXBeans.map(_.getCollectionCount max 0L).sum
+
+  private def gcMillis = ManagementFactory.getGarbageCollectorMXBeans.map(_.getCollectionTime max 0L).sum
+
+}
+
+/**
+  * Instrumented Scala function.
+  */
+private[util] class InstrumentedFunction[In, Out](name: String, udf: In => Out) extends (In => Out) with Serializable {
+
+  @transient private lazy val operatorStatistics = Instrumentation.getStatistics(name)
+
+  override def apply(in: In): Out = Instrumentation.measure(this.operatorStatistics, udf(in))
+
+}
+
+/**
+  * Instrumented binary Scala function.
+  */
+private[util] class InstrumentedFunction2[In1, In2, Out](name: String, udf: (In1, In2) => Out)
+  extends ((In1, In2) => Out) with Serializable {
+
+  @transient private lazy val operatorStatistics = Instrumentation.getStatistics(name)
+
+  override def apply(in1: In1, in2: In2): Out = Instrumentation.measure(this.operatorStatistics, udf(in1, in2))
+
+}
+
+/**
+  * Instrumented [[ExtendedSerializableFunction]].
+  */
+private[util] class InstrumentedExtendedFunction[In, Out](name: String, udf: ExtendedSerializableFunction[In, Out])
+  extends ExtendedSerializableFunction[In, Out] {
+
+  @transient private lazy val operatorStatistics = Instrumentation.getStatistics(name)
+
+  override def open(ctx: ExecutionContext): Unit = udf.open(ctx)
+
+  override def apply(in: In): Out = Instrumentation.measure(this.operatorStatistics, udf(in))
+
+}
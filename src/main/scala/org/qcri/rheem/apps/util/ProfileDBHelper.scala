@@ -13,20 +13,38 @@ import org.qcri.rheem.core.profiling.ProfileDBs
 object ProfileDBHelper {
 
   /**
-    * Stores the given [[Experiment]] if the [[Configuration]] defines a ProfileDB.
+    * Whether [[store]] should store [[Experiment]]s at all. Only the
+    * [[org.qcri.rheem.apps.benchmark.BenchmarkRunner]] should switch it off, namely for its warmup runs. As the switch
+    * applies to the whole JVM, any experiments that other threads try to store meanwhile are silently dropped.
+    */
+  @volatile var isStoring = true
+
+  /**
+    * Stores the given [[Experiment]] if the [[Configuration]] defines a ProfileDB and [[isStoring]] is set.
     *
     * @param experiment    the [[Experiment]]
     * @param configuration [[Configuration]]
     */
   def store(experiment: Experiment, configuration: Configuration) = {
     configuration.getStringProperty("rheem.apps.profiledb", null) match {
-      case path: String => {
+      case path: String if isStoring => {
         println(s"Storing experiment '${experiment.getId}' to $path.")
-        val profileDB = ProfileDBs.createProfileDB
+        val profileDB = createProfileDB
         profileDB.append(new File(path), experiment)
       }
       case _ =>
     }
   }
 
+  /**
+    * Creates a [[ProfileDB]] that also knows the measurement types of the apps.
+    *
+    * @return the [[ProfileDB]]
+    */
+  def createProfileDB: ProfileDB = {
+    val profileDB = ProfileDBs.createProfileDB
+    profileDB.registerMeasurementClass(classOf[ValuesMeasurement])
+    profileDB
+  }
+
 }
@@ -0,0 +1,72 @@
+package org.qcri.rheem.apps.util
+
+/**
+  * Descriptive statistics of a sample of measurements, such as the runtimes of repeated runs.
+  *
+  * @param values the measurements; must not be empty
+  */
+class Statistics(values: Seq[Double]) {
+
+  require(values.nonEmpty, "Cannot describe an empty sample.")
+
+  private val sorted = values.sorted.toArray
+
+  /**
+    * @return the number of measurements
+    */
+  def count: Int = this.sorted.length
+
+  def min: Double = this.sorted.head
+
+  def max: Double = this.sorted.last
+
+  def mean: Double = this.sorted.sum / this.count
+
+  def median: Double = this.percentile(50)
+
+  /**
+    * Determines a percentile with linear interpolation between the closest ranks.
+    *
+    * @param p the percentile in `[0, 100]`
+    * @return the percentile
+    */
+  def percentile(p: Double): Double = {
+    val rank = p / 100 * (this.count - 1)
+    val (lower, upper) = (math.floor(rank).toInt, math.ceil(rank).toInt)
+    this.sorted(lower) + (rank - lower) * (this.sorted(upper) - this.sorted(lower))
+  }
+
+  /**
+    * @return the sample standard deviation or `0` for a single measurement
+    */
+  def stddev: Double =
+    if (this.count < 2) 0d
+    else {
+      val mean = this.mean
+      math.sqrt(this.sorted.map(v => (v - mean) * (v - mean)).sum / (this.count - 1))
+    }
+
+  /**
+    * Adds these statistics to a [[ValuesMeasurement]].
+    *
+    * @param measurement the [[ValuesMeasurement]]
+    * @param prefix      prefix for the keys of the statistics
+    * @return the `measurement`
+    */
+  def addTo(measurement: ValuesMeasurement, prefix: String = ""): ValuesMeasurement = {
+    for ((key, value) <- this.toSeq) measurement.add(prefix + key, value)
+    measurement
+  }
+
+  /**
+    * @return the statistics as key-value pairs
+    */
+  def toSeq: Seq[(String, Double)] = Seq(
+    "count" -> this.count.toDouble, "min" -> this.min, "median" -> this.median, "p95" -> this.percentile(95),
+    "max" -> this.max, "mean" -> this.mean, "stddev" -> this.stddev
+  )
+
+  override def toString =
+    this.toSeq.map { case (key, value) => f"$key=$value%,.2f" }.mkString("Statistics[", ", ", "]")
+
+}
@@ -0,0 +1,71 @@
+package org.qcri.rheem.apps.util
+
+import de.hpi.isg.profiledb.store.model.{Experiment, Measurement, Type}
+
+/**
+  * A [[Measurement]] that keeps arbitrary named values, such as iteration counts or residuals, that the apps
+  * determine themselves and want to attach to their [[Experiment]].
+  *
+  * @param id the ID of the new instance
+  */
+@Type("values")
+class ValuesMeasurement(id: String) extends Measurement(id) {
+
+  /**
+    * Keeps the measured values in the order of their insertion.
+    */
+  private val values = new java.util.LinkedHashMap[String, AnyRef]
+
+  /**
+    * Deserialization constructor.
+    */
+  def this() = this(null)
+
+  /**
+    * Adds or replaces a value.
+    *
+    * @param key   the name of the value
+    * @param value the value itself
+    * @return this instance
+    */
+  def add(key: String, value: Any): ValuesMeasurement = {
+    this.values.put(key, value.asInstanceOf[AnyRef])
+    this
+  }
+
+  /**
+    * Retrieves a value.
+    *
+    * @param key the name of the value
+    * @return the value or `null` if there is none
+    */
+  def get(key: String): AnyRef = this.values.get(key)
+
+  /**
+    * @return the measured values
+    */
+  def getValues: java.util.Map[String, AnyRef] = this.values
+
+}
+
+/**
+  * Companion object for [[ValuesMeasurement]].
+  */
+object ValuesMeasurement {
+
+  /**
+    * Creates a new [[ValuesMeasurement]] and adds it to the given [[Experiment]].
+    *
+    * @param experiment the [[Experiment]]
+    * @param id         the ID of the new [[ValuesMeasurement]]
+    * @param values     the initial values of the new [[ValuesMeasurement]]
+    * @return the new [[ValuesMeasurement]]
+    */
+  def addTo(experiment: Experiment, id: String, values: (String, Any)*): ValuesMeasurement = {
+    val measurement = new ValuesMeasurement(id)
+    values.foreach { case (key, value) => measurement.add(key, value) }
+    experiment.addMeasurement(measurement)
+    measurement
+  }
+
+}
@@ -2,7 +2,7 @@ package org.qcri.rheem.apps.wordcount
 
 import de.hpi.isg.profiledb.store.model.Experiment
 import org.qcri.rheem.api._
-import org.qcri.rheem.apps.util.{ExperimentDescriptor, Parameters, ProfileDBHelper}
+import org.qcri.rheem.apps.util.{AppsKryo, ExperimentDescriptor, Instrumentation, Parameters, ProfileDBHelper}
 import org.qcri.rheem.core.api.{Configuration, RheemContext}
 import org.qcri.rheem.core.optimizer.ProbabilisticDoubleInterval
 import org.qcri.rheem.core.plugin.Plugin
@@ -29,15 +29,22 @@ class WordCountScala(plugin: Plugin*) {
     plugin.foreach(rheemCtx.register)
     val planBuilder = new PlanBuilder(rheemCtx)
 
+    // Name the instrumented operators, so that their measurements can be matched.
+    val (splitWords, addCounter, addCounters) = ("Split words", "To lower case, add counter", "Add counters")
+
     planBuilder
       .withJobName(s"WordCount ($inputUrl)")
       .withExperiment(experiment)
       .withUdfJarsOf(this.getClass)
       .readTextFile(inputUrl).withName("Load file")
-      .flatMap(_.split("\\W+"), selectivity = wordsPerLine).withName("Split words")
+      .flatMap(Instrumentation.wrap(splitWords, (line: String) => line.split("\\W+").toSeq), selectivity = wordsPerLine)
+      .withName(splitWords)
       .filter(_.nonEmpty, selectivity = 0.99).withName("Filter empty words")
-      .map(word => (word.toLowerCase, 1)).withName("To lower case, add counter")
-      .reduceByKey(_._1, (c1, c2) => (c1._1, c1._2 + c2._2)).withName("Add counters")
+      .map(Instrumentation.wrap(addCounter, (word: String) => (word.toLowerCase, 1))).withName(addCounter)
+      .reduceByKey(
+        Instrumentation.wrapKey(addCounters, (_: (String, Int))._1),
+        Instrumentation.wrap2(addCounters, (c1: (String, Int), c2: (String, Int)) => (c1._1, c1._2 + c2._2))
+      ).withName(addCounters)
       .withCardinalityEstimator((in: Long) => math.round(in * 0.01))
       .collect()
   }
@@ -58,6 +65,7 @@ object WordCountScala extends ExperimentDescriptor {
       sys.exit(1)
     }
     implicit val configuration = new Configuration
+    AppsKryo.enable(configuration)
     implicit val experiment = Parameters.createExperiment(args(0), this)
     val plugins = Parameters.loadPlugins(args(1))
     experiment.getSubject.addConfiguration("plugins", args(1))
@@ -69,6 +77,7 @@ object WordCountScala extends ExperimentDescriptor {
     } else null
 
     // Run wordCount.
+    Instrumentation.start(configuration)
     val wordCount = new WordCountScala(plugins: _*)
     val words =
       (if (wordsPerLine != null) {
@@ -80,6 +89,7 @@ object WordCountScala extends ExperimentDescriptor {
     // Store experiment data.
     val inputFileSize = FileSystems.getFileSize(inputFile)
     if (inputFileSize.isPresent) experiment.getSubject.addConfiguration("inputSize", inputFileSize.getAsLong)
+    Instrumentation.stop(experiment)
     ProfileDBHelper.store(experiment, configuration)
 
     // Print results.
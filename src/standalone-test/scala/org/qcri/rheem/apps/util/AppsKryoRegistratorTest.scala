@@ -0,0 +1,78 @@
+package org.qcri.rheem.apps.util
+
+import com.esotericsoftware.kryo.Kryo
+import com.esotericsoftware.kryo.io.{Input, Output}
+import org.junit.{Assert, Test}
+import org.qcri.rheem.apps.kmeans.{Point, TaggedPointCounter}
+import org.qcri.rheem.apps.simwords.SparseVector
+import org.qcri.rheem.apps.sindy.ColumnSet
+import org.qcri.rheem.apps.tpch.data.LineItemTuple
+
+/**
+  * Test suite for the [[AppsKryoRegistrator]].
+  */
+class AppsKryoRegistratorTest {
+
+  private val kryo = {
+    val kryo = new Kryo
+    new AppsKryoRegistrator().registerClasses(kryo)
+    kryo
+  }
+
+  private def serialize(obj: AnyRef): Array[Byte] = {
+    val output = new Output(1024, -1)
+    this.kryo.writeObject(output, obj)
+    output.toBytes
+  }
+
+  private def roundTrip[T <: AnyRef](obj: T): T =
+    this.kryo.readObject(new Input(this.serialize(obj)), obj.getClass).asInstanceOf[T]
+
+  @Test
+  def testPoints(): Unit = {
+    Assert.assertEquals(Point(1.5, -2), this.roundTrip(Point(1.5, -2)))
+    Assert.assertEquals(TaggedPointCounter(1, 2, -42, 7), this.roundTrip(TaggedPointCounter(1, 2, -42, 7)))
+  }
+
+  @Test
+  def testSparseVector(): Unit = {
+    val vector = SparseVector(Array(3, 100, 101, 100000), Array(.5, 1, 2, 3))
+    val copy = this.roundTrip(vector)
+    Assert.assertArrayEquals(vector.indices, copy.indices)
+    Assert.assertArrayEquals(vector.values, copy.values, 0d)
+    // 1 byte for the size, 1 + 1 + 1 + 3 bytes for the index deltas, and 4 * 8 bytes for the values
+    Assert.assertEquals(39, this.serialize(vector).length)
+  }
+
+  @Test
+  def testColumnSets(): Unit = {
+    val sparse = ColumnSet(5).add(1000).add(70)
+    Assert.assertArrayEquals(Array(5, 70, 1000), this.roundTrip(sparse).toArray)
+
+    val dense = ColumnSet.empty
+    (0 until 50).foreach(dense.add)
+    val denseCopy = this.roundTrip(dense)
+    Assert.assertTrue(denseCopy.isDense)
+    Assert.assertArrayEquals(dense.toArray, denseCopy.toArray)
+  }
+
+  @Test
+  def testLineItemTuple(): Unit = {
+    val tuple = new LineItemTuple(1L, 2L, 3L, 4, 5d, 6d, .07, .08, 'R', 9000, 9001, 9002, "NONE", "AIR", "comment")
+    tuple.L_LINESTATUS = 'F'
+    val copy = this.roundTrip(tuple)
+    Assert.assertEquals(tuple.L_ORDERKEY, copy.L_ORDERKEY)
+    Assert.assertEquals(tuple.L_TAX, copy.L_TAX, 0d)
+    Assert.assertEquals(tuple.L_RETURNFLAG, copy.L_RETURNFLAG)
+    Assert.assertEquals(tuple.L_LINESTATUS, copy.L_LINESTATUS)
+    Assert.assertEquals(tuple.L_RECEIPTDATE, copy.L_RECEIPTDATE)
+    Assert.assertEquals(tuple.L_COMMENT, copy.L_COMMENT)
+  }
+
+  @Test
+  def testRegistratorName(): Unit = {
+    Assert.assertEquals(classOf[AppsKryoRegistrator].getName, AppsKryo.registratorClassName)
+    Assert.assertTrue(AppsKryo.isRegistratorAvailable)
+  }
+
+}
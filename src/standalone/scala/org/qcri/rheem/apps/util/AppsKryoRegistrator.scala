@@ -0,0 +1,298 @@
+package org.qcri.rheem.apps.util
+
+import com.esotericsoftware.kryo.io.{Input, Output}
+import com.esotericsoftware.kryo.{Kryo, Serializer}
+import org.apache.spark.serializer.KryoRegistrator
+import org.qcri.rheem.apps.kmeans.{Point, TaggedPoint, TaggedPointCounter}
+import org.qcri.rheem.apps.sgd.SparsePoint
+import org.qcri.rheem.apps.simwords.SparseVector
+import org.qcri.rheem.apps.sindy.ColumnSet
+import org.qcri.rheem.apps.tpch.data.LineItem
+import org.qcri.rheem.apps.tpch.data.LineItemTuple
+import org.qcri.rheem.apps.tpch.data.q1.{GroupKey, ReturnTuple}
+
+/**
+  * Registers compact Kryo serializers for the data types that the apps shuffle and broadcast on Spark. Sorted indices
+  * are encoded as varint deltas, and all other integers as varints.
+  * <p>As this class depends on Spark, it is compiled only with the `standalone` profile and enabled via [[AppsKryo]].</p>
+  */
+class AppsKryoRegistrator extends KryoRegistrator {
+
+  import AppsKryoRegistrator._
+
+  override def registerClasses(kryo: Kryo): Unit = {
+    kryo.register(classOf[Point], new PointSerializer)
+    kryo.register(classOf[TaggedPoint], new TaggedPointSerializer)
+    kryo.register(classOf[TaggedPointCounter], new TaggedPointCounterSerializer)
+    kryo.register(classOf[SparseVector], new SparseVectorSerializer)
+    kryo.register(classOf[LineItem], new LineItemSerializer)
+    kryo.register(classOf[LineItemTuple], new LineItemTupleSerializer)
+    kryo.register(classOf[ReturnTuple], new ReturnTupleSerializer)
+    kryo.register(classOf[GroupKey], new GroupKeySerializer)
+    kryo.register(classOf[ColumnSet], new ColumnSetSerializer)
+    kryo.register(classOf[SparsePoint], new SparsePointSerializer)
+    kryo.register(classOf[Array[Int]])
+    kryo.register(classOf[Array[Double]])
+  }
+
+}
+
+/**
+  * Companion object for [[AppsKryoRegistrator]].
+  */
+object AppsKryoRegistrator {
+
+  /**
+    * Writes ascending indices as varint deltas.
+    */
+  private[util] def writeSortedInts(output: Output, values: Array[Int], length: Int): Unit = {
+    output.writeInt(length, true)
+    var previous = 0
+    var i = 0
+    while (i < length) {
+      output.writeInt(values(i) - previous, true)
+      previous = values(i)
+      i += 1
+    }
+  }
+
+  /**
+    * Reads indices as written by [[writeSortedInts]].
+    */
+  private[util] def readSortedInts(input: Input): Array[Int] = {
+    val values = new Array[Int](input.readInt(true))
+    var previous = 0
+    var i = 0
+    while (i < values.length) {
+      previous += input.readInt(true)
+      values(i) = previous
+      i += 1
+    }
+    values
+  }
+
+  private def writeDoubles(output: Output, values: Array[Double]): Unit = {
+    var i = 0
+    while (i < values.length) {
+      output.writeDouble(values(i))
+      i += 1
+    }
+  }
+
+  private def readDoubles(input: Input, length: Int): Array[Double] = {
+    val values = new Array[Double](length)
+    var i = 0
+    while (i < length) {
+      values(i) = input.readDouble()
+      i += 1
+    }
+    values
+  }
+
+  private class PointSerializer extends Serializer[Point] {
+
+    override def write(kryo: Kryo, output: Output, point: Point): Unit = {
+      output.writeDouble(point.x)
+      output.writeDouble(point.y)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[Point]): Point = Point(input.readDouble(), input.readDouble())
+
+  }
+
+  private class TaggedPointSerializer extends Serializer[TaggedPoint] {
+
+    override def write(kryo: Kryo, output: Output, point: TaggedPoint): Unit = {
+      output.writeDouble(point.x)
+      output.writeDouble(point.y)
+      output.writeInt(point.centroidId, false)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[TaggedPoint]): TaggedPoint =
+      TaggedPoint(input.readDouble(), input.readDouble(), input.readInt(false))
+
+  }
+
+  private class TaggedPointCounterSerializer extends Serializer[TaggedPointCounter] {
+
+    override def write(kryo: Kryo, output: Output, point: TaggedPointCounter): Unit = {
+      output.writeDouble(point.x)
+      output.writeDouble(point.y)
+      output.writeInt(point.centroidId, false)
+      output.writeInt(point.count, true)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[TaggedPointCounter]): TaggedPointCounter =
+      TaggedPointCounter(input.readDouble(), input.readDouble(), input.readInt(false), input.readInt(true))
+
+  }
+
+  private class SparseVectorSerializer extends Serializer[SparseVector] {
+
+    override def write(kryo: Kryo, output: Output, vector: SparseVector): Unit = {
+      writeSortedInts(output, vector.indices, vector.indices.length)
+      writeDoubles(output, vector.values)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[SparseVector]): SparseVector = {
+      val indices = readSortedInts(input)
+      SparseVector(indices, readDoubles(input, indices.length))
+    }
+
+  }
+
+  private class SparsePointSerializer extends Serializer[SparsePoint] {
+
+    override def write(kryo: Kryo, output: Output, point: SparsePoint): Unit = {
+      output.writeDouble(point.label)
+      writeSortedInts(output, point.indices, point.indices.length)
+      writeDoubles(output, point.values)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[SparsePoint]): SparsePoint = {
+      val label = input.readDouble()
+      val indices = readSortedInts(input)
+      new SparsePoint(label, indices, readDoubles(input, indices.length))
+    }
+
+  }
+
+  private class ColumnSetSerializer extends Serializer[ColumnSet] {
+
+    override def write(kryo: Kryo, output: Output, columnSet: ColumnSet): Unit =
+      writeSortedInts(output, columnSet.toArray, columnSet.size)
+
+    override def read(kryo: Kryo, input: Input, cls: Class[ColumnSet]): ColumnSet =
+      ColumnSet.fromSortedIds(readSortedInts(input))
+
+  }
+
+  private class LineItemSerializer extends Serializer[LineItem] {
+
+    override def write(kryo: Kryo, output: Output, lineItem: LineItem): Unit = {
+      output.writeLong(lineItem.orderKey, true)
+      output.writeLong(lineItem.partKey, true)
+      output.writeLong(lineItem.suppKey, true)
+      output.writeInt(lineItem.lineNumber, true)
+      output.writeDouble(lineItem.quantity)
+      output.writeDouble(lineItem.extendedPrice)
+      output.writeDouble(lineItem.discount)
+      output.writeDouble(lineItem.tax)
+      output.writeChar(lineItem.returnFlag)
+      output.writeChar(lineItem.lineStatus)
+      output.writeInt(lineItem.shipDate, false)
+      output.writeInt(lineItem.commitDate, false)
+      output.writeInt(lineItem.receiptDate, false)
+      output.writeString(lineItem.shipInstruct)
+      output.writeString(lineItem.shipMode)
+      output.writeString(lineItem.comment)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[LineItem]): LineItem = LineItem(
+      input.readLong(true),
+      input.readLong(true),
+      input.readLong(true),
+      input.readInt(true),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readChar(),
+      input.readChar(),
+      input.readInt(false),
+      input.readInt(false),
+      input.readInt(false),
+      input.readString(),
+      input.readString(),
+      input.readString()
+    )
+
+  }
+
+  private class LineItemTupleSerializer extends Serializer[LineItemTuple] {
+
+    override def write(kryo: Kryo, output: Output, tuple: LineItemTuple): Unit = {
+      output.writeLong(tuple.L_ORDERKEY, true)
+      output.writeLong(tuple.L_PARTKEY, true)
+      output.writeLong(tuple.L_SUPPKEY, true)
+      output.writeInt(tuple.L_LINENUMBER, true)
+      output.writeDouble(tuple.L_QUANTITY)
+      output.writeDouble(tuple.L_EXTENDEDPRICE)
+      output.writeDouble(tuple.L_DISCOUNT)
+      output.writeDouble(tuple.L_TAX)
+      output.writeChar(tuple.L_RETURNFLAG)
+      output.writeChar(tuple.L_LINESTATUS)
+      output.writeInt(tuple.L_SHIPDATE, false)
+      output.writeInt(tuple.L_COMMITDATE, false)
+      output.writeInt(tuple.L_RECEIPTDATE, false)
+      output.writeString(tuple.L_SHIPINSTRUCT)
+      output.writeString(tuple.L_SHIPMODE)
+      output.writeString(tuple.L_COMMENT)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[LineItemTuple]): LineItemTuple = {
+      val tuple = new LineItemTuple
+      tuple.L_ORDERKEY = input.readLong(true)
+      tuple.L_PARTKEY = input.readLong(true)
+      tuple.L_SUPPKEY = input.readLong(true)
+      tuple.L_LINENUMBER = input.readInt(true)
+      tuple.L_QUANTITY = input.readDouble()
+      tuple.L_EXTENDEDPRICE = input.readDouble()
+      tuple.L_DISCOUNT = input.readDouble()
+      tuple.L_TAX = input.readDouble()
+      tuple.L_RETURNFLAG = input.readChar()
+      tuple.L_LINESTATUS = input.readChar()
+      tuple.L_SHIPDATE = input.readInt(false)
+      tuple.L_COMMITDATE = input.readInt(false)
+      tuple.L_RECEIPTDATE = input.readInt(false)
+      tuple.L_SHIPINSTRUCT = input.readString()
+      tuple.L_SHIPMODE = input.readString()
+      tuple.L_COMMENT = input.readString()
+      tuple
+    }
+
+  }
+
+  private class ReturnTupleSerializer extends Serializer[ReturnTuple] {
+
+    override def write(kryo: Kryo, output: Output, tuple: ReturnTuple): Unit = {
+      output.writeChar(tuple.L_RETURNFLAG)
+      output.writeChar(tuple.L_LINESTATUS)
+      output.writeDouble(tuple.SUM_QTY)
+      output.writeDouble(tuple.SUM_BASE_PRICE)
+      output.writeDouble(tuple.SUM_DISC_PRICE)
+      output.writeDouble(tuple.SUM_CHARGE)
+      output.writeDouble(tuple.AVG_QTY)
+      output.writeDouble(tuple.AVG_PRICE)
+      output.writeDouble(tuple.AVG_DISC)
+      output.writeInt(tuple.COUNT_ORDER, true)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[ReturnTuple]): ReturnTuple = new ReturnTuple(
+      input.readChar(),
+      input.readChar(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readDouble(),
+      input.readInt(true)
+    )
+
+  }
+
+  private class GroupKeySerializer extends Serializer[GroupKey] {
+
+    override def write(kryo: Kryo, output: Output, key: GroupKey): Unit = {
+      output.writeChar(key.L_RETURNFLAG)
+      output.writeChar(key.L_LINESTATUS)
+    }
+
+    override def read(kryo: Kryo, input: Input, cls: Class[GroupKey]): GroupKey =
+      new GroupKey(input.readChar(), input.readChar())
+
+  }
+
+}
@@ -0,0 +1,47 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test suite for {@link FileSplit}.
+ */
+public class FileSplitTest {
+
+    @Test
+    public void testEveryLineIsReadExactlyOnce() throws IOException {
+        File file = File.createTempFile("baseline", ".txt");
+        file.deleteOnExit();
+        List<String> lines = Arrays.asList("first line", "", "third", "a", "fifth line is longer", "last");
+        Files.write(file.toPath(), (String.join("\r\n", lines)).getBytes(StandardCharsets.UTF_8));
+
+        for (int numSplits : new int[]{1, 2, 3, 7, 100}) {
+            List<String> readLines = new ArrayList<>();
+            for (FileSplit split : FileSplit.split(file.getPath(), numSplits)) {
+                split.forEachLine(readLines::add);
+            }
+            Assert.assertEquals("Splits: " + numSplits, lines, readLines);
+        }
+    }
+
+    @Test
+    public void testWordCount() throws IOException {
+        File file = File.createTempFile("baseline", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), Arrays.asList("Hello world,", "hello again!"), StandardCharsets.UTF_8);
+
+        WordCounter wordCounter = WordCountBaseline.count(file.getPath(), 4);
+        Assert.assertEquals(3, wordCounter.size());
+        Assert.assertEquals(2, wordCounter.get("hello"));
+        Assert.assertEquals(1, wordCounter.get("world"));
+        Assert.assertEquals(0, wordCounter.get("Hello"));
+    }
+}
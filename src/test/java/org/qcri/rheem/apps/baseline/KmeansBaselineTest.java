@@ -0,0 +1,42 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test suite for {@link KmeansBaseline}.
+ */
+public class KmeansBaselineTest {
+
+    @Test
+    public void testFindsSeparatedClusters() throws IOException {
+        File file = File.createTempFile("baseline", ".csv");
+        file.deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            double offset = (i % 5 - 2) * 0.1;
+            lines.add((-10 + offset) + "," + (-10 - offset));
+            lines.add((10 + offset) + "," + (10 - offset) + ",ignored");
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+
+        KmeansBaseline.Points points = KmeansBaseline.load(file.getPath(), 3);
+        Assert.assertEquals(100, points.size());
+
+        double[][] centroids = KmeansBaseline.run(points, 2, 20, true, 4, 42L);
+        Assert.assertEquals(2, centroids[0].length);
+        int lower = centroids[0][0] < centroids[0][1] ? 0 : 1;
+        Assert.assertEquals(-10, centroids[0][lower], 1e-9);
+        Assert.assertEquals(-10, centroids[1][lower], 1e-9);
+        Assert.assertEquals(10, centroids[0][1 - lower], 1e-9);
+        Assert.assertEquals(10, centroids[1][1 - lower], 1e-9);
+    }
+
+}
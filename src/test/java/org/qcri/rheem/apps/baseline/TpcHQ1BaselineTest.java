@@ -0,0 +1,54 @@
+package org.qcri.rheem.apps.baseline;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.qcri.rheem.apps.tpch.data.q1.ReturnTuple;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test suite for {@link TpcHQ1Baseline}.
+ */
+public class TpcHQ1BaselineTest {
+
+    @Test
+    public void testAggregatesGroups() throws IOException {
+        File file = File.createTempFile("lineitem", ".tbl");
+        file.deleteOnExit();
+        Files.write(file.toPath(), Arrays.asList(
+                "1|11|21|1|10|100.00|0.10|0.00|N|O|1998-01-01|1998-01-02|1998-01-03|NONE|AIR|first|",
+                "2|12|22|1|20|200.00|0.00|0.50|N|O|1998-02-01|1998-02-02|1998-02-03|NONE|AIR|second|",
+                "3|13|23|1|5|50.00|0.00|0.00|A|F|1995-01-01|1995-01-02|1995-01-03|NONE|MAIL|third|",
+                // Shipped after 1998-12-01 minus 90 days.
+                "4|14|24|1|7|70.00|0.00|0.00|R|F|1998-11-30|1998-12-01|1998-12-02|NONE|SHIP|fourth|"
+        ), StandardCharsets.UTF_8);
+
+        List<ReturnTuple> result = TpcHQ1Baseline.run(file.getPath(), 90, 3);
+        Assert.assertEquals(2, result.size());
+
+        ReturnTuple af = result.get(0);
+        Assert.assertEquals('A', af.L_RETURNFLAG);
+        Assert.assertEquals('F', af.L_LINESTATUS);
+        Assert.assertEquals(5, af.SUM_QTY, 1e-9);
+        Assert.assertEquals(50, af.SUM_CHARGE, 1e-9);
+        Assert.assertEquals(1, af.COUNT_ORDER);
+
+        ReturnTuple no = result.get(1);
+        Assert.assertEquals('N', no.L_RETURNFLAG);
+        Assert.assertEquals('O', no.L_LINESTATUS);
+        Assert.assertEquals(30, no.SUM_QTY, 1e-9);
+        Assert.assertEquals(300, no.SUM_BASE_PRICE, 1e-9);
+        Assert.assertEquals(90 + 200, no.SUM_DISC_PRICE, 1e-9);
+        Assert.assertEquals(90 + 200 * 1.5, no.SUM_CHARGE, 1e-9);
+        Assert.assertEquals(15, no.AVG_QTY, 1e-9);
+        Assert.assertEquals(150, no.AVG_PRICE, 1e-9);
+        Assert.assertEquals(0.05, no.AVG_DISC, 1e-9);
+        Assert.assertEquals(2, no.COUNT_ORDER);
+    }
+
+}
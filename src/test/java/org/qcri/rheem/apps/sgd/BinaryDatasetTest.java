@@ -0,0 +1,76 @@
+package org.qcri.rheem.apps.sgd;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Test suite for {@link BinaryDataset}.
+ */
+public class BinaryDatasetTest {
+
+    @Test
+    public void testConversionAndRandomAccess() throws IOException {
+        File textFile = File.createTempFile("sgd", ".libsvm");
+        textFile.deleteOnExit();
+        Files.write(textFile.toPath(), Arrays.asList(
+                "1 1:0.5 3:2.0",
+                "",
+                "0 2:-1.5",
+                "1"
+        ), StandardCharsets.UTF_8);
+        File binaryFile = File.createTempFile("sgd", ".bin");
+        binaryFile.deleteOnExit();
+        new File(binaryFile.getPath() + BinaryDataset.INDEX_SUFFIX).deleteOnExit();
+
+        Assert.assertEquals(3, BinaryDataset.convert(textFile.toURI().toString(), binaryFile.toURI().toString()));
+        Assert.assertTrue(BinaryDataset.exists(binaryFile.getPath()));
+
+        try (BinaryDataset.Reader reader = new BinaryDataset.Reader(binaryFile.getPath())) {
+            Assert.assertEquals(3, reader.getNumRows());
+
+            SparsePoint point = reader.read(1);
+            Assert.assertEquals(0d, point.label, 0d);
+            Assert.assertArrayEquals(new int[]{1}, point.indices);
+            Assert.assertArrayEquals(new double[]{-1.5}, point.values, 0d);
+
+            point = reader.read(0);
+            Assert.assertEquals(1d, point.label, 0d);
+            Assert.assertArrayEquals(new int[]{0, 2}, point.indices);
+            Assert.assertArrayEquals(new double[]{0.5, 2.0}, point.values, 0d);
+
+            point = reader.read(2);
+            Assert.assertEquals(1d, point.label, 0d);
+            Assert.assertEquals(0, point.indices.length);
+        }
+    }
+
+    @Test
+    public void testIncompleteDatasetDoesNotExist() throws IOException {
+        File textFile = File.createTempFile("sgd", ".libsvm");
+        textFile.deleteOnExit();
+        Files.write(textFile.toPath(), Arrays.asList("1 1:0.5 3:2.0", "0 2:-1.5"), StandardCharsets.UTF_8);
+        File binaryFile = File.createTempFile("sgd", ".bin");
+        binaryFile.deleteOnExit();
+        new File(binaryFile.getPath() + BinaryDataset.INDEX_SUFFIX).deleteOnExit();
+
+        // An empty data file without index, e.g., from a conversion that died right away.
+        Assert.assertFalse(BinaryDataset.exists(binaryFile.getPath()));
+
+        BinaryDataset.convert(textFile.toURI().toString(), binaryFile.toURI().toString());
+        Assert.assertTrue(BinaryDataset.exists(binaryFile.getPath()));
+
+        // A data file that does not match its index.
+        try (RandomAccessFile file = new RandomAccessFile(binaryFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        Assert.assertFalse(BinaryDataset.exists(binaryFile.getPath()));
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.qcri.rheem.apps.sgd;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test suite for {@link Optimizer}.
+ */
+public class OptimizerTest {
+
+    private static final double[] GRADIENT_SUM = new double[]{2, 4, -1}; // 2 data points, mean gradient (2, -0.5)
+
+    @Test
+    public void testSgd() {
+        double[] model = Optimizer.SGD.createModel(2);
+        Assert.assertEquals(4, model.length);
+
+        double[] newModel = Optimizer.SGD.update(model, GRADIENT_SUM, 2, 1, 1d);
+        Assert.assertArrayEquals(new double[]{-1, 0.25, Double.MAX_VALUE, Double.MAX_VALUE}, newModel, 1e-9);
+    }
+
+    @Test
+    public void testAdaGrad() {
+        double[] model = Optimizer.ADAGRAD.createModel(2);
+        Assert.assertEquals(6, model.length);
+
+        // The first step moves each weight by the step size against the sign of its gradient.
+        double[] newModel = Optimizer.ADAGRAD.update(model, GRADIENT_SUM, 2, 0, 0.1d);
+        Assert.assertArrayEquals(new double[]{-0.1, 0.1, 4, 0.25, Double.MAX_VALUE, Double.MAX_VALUE}, newModel, 1e-6);
+    }
+
+    @Test
+    public void testAdam() {
+        double[] model = Optimizer.ADAM.createModel(2);
+        Assert.assertEquals(8, model.length);
+
+        // The bias correction lets the first step move each weight by the step size as well.
+        double[] newModel = Optimizer.ADAM.update(model, GRADIENT_SUM, 2, 0, 0.01d);
+        Assert.assertEquals(-0.01, newModel[0], 1e-6);
+        Assert.assertEquals(0.01, newModel[1], 1e-6);
+        Assert.assertEquals(0.2, newModel[2], 1e-9);
+        Assert.assertEquals(-0.05, newModel[3], 1e-9);
+        Assert.assertEquals(0.004, newModel[4], 1e-9);
+        Assert.assertEquals(0.00025, newModel[5], 1e-9);
+        Assert.assertEquals(Double.MAX_VALUE, newModel[6], 0d);
+        Assert.assertEquals(Double.MAX_VALUE, newModel[7], 0d);
+    }
+
+    @Test
+    public void testAttachHoldoutLossKeepsBestLoss() {
+        AttachHoldoutLoss attachHoldoutLoss = new AttachHoldoutLoss();
+        double[] model = Optimizer.SGD.createModel(2);
+
+        attachHoldoutLoss.loss = new double[]{4, 2}; // 4 data points with a total loss of 2
+        model = attachHoldoutLoss.apply(model);
+        Assert.assertArrayEquals(new double[]{0, 0, 0.5, 0.5}, model, 0d);
+
+        attachHoldoutLoss.loss = new double[]{4, 3};
+        model = attachHoldoutLoss.apply(model);
+        Assert.assertArrayEquals(new double[]{0, 0, 0.5, 0.75}, model, 0d);
+    }
+
+}
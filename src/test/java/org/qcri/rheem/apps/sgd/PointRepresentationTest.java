@@ -0,0 +1,52 @@
+package org.qcri.rheem.apps.sgd;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * Checks that the dense and the sparse point representations train the same model, i.e., that they pair the same
+ * features with the same weights.
+ */
+public class PointRepresentationTest {
+
+    private static final String LINE = "1 1:0.5 3:-2.0 4:1.5";
+
+    private static final int FEATURES = 4;
+
+    private static final double[] WEIGHTS = new double[]{0.1, -0.2, 0.3, 0.4};
+
+    @Test
+    public void testDenseAndSparseGradientsMatch() {
+        double[] densePoint = new TransformPerPartition(FEATURES).apply(Collections.singletonList(LINE)).iterator().next();
+        Assert.assertArrayEquals(new double[]{1, 0.5, 0, -2, 1.5}, densePoint, 0d);
+
+        ComputeLogisticGradientPerPartition denseGradient = new ComputeLogisticGradientPerPartition(FEATURES);
+        denseGradient.weights = WEIGHTS;
+        double[] denseSum = denseGradient.apply(Collections.singletonList(densePoint)).iterator().next();
+
+        SparsePoint sparsePoint = SparsePoint.parse(LINE);
+        ComputeSparseLogisticGradientPerPartition sparseGradient = new ComputeSparseLogisticGradientPerPartition(FEATURES);
+        sparseGradient.weights = WEIGHTS;
+        sparseGradient.sumGradOfPartition = new double[FEATURES + 1];
+        double[] sparseSum = sparseGradient.apply(Collections.singletonList(sparsePoint)).iterator().next();
+
+        Assert.assertArrayEquals(denseSum, sparseSum, 1e-12);
+
+        // The gradient of feature k is (sigmoid(w·x) - label) * x_k at position k.
+        double dot = 0.1 * 0.5 + 0.3 * -2.0 + 0.4 * 1.5;
+        double error = 1 / (1 + Math.exp(-dot)) - 1;
+        Assert.assertArrayEquals(new double[]{1, error * 0.5, 0, error * -2.0, error * 1.5}, sparseSum, 1e-12);
+    }
+
+    @Test
+    public void testPerPointTransformMatchesPartitionTransform() {
+        Assert.assertArrayEquals(
+                new TransformPerPartition(FEATURES).apply(Collections.singletonList(LINE)).iterator().next(),
+                new Transform(FEATURES).apply(LINE),
+                0d
+        );
+    }
+
+}
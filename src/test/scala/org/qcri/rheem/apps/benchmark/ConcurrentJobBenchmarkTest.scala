@@ -0,0 +1,29 @@
+package org.qcri.rheem.apps.benchmark
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.{Assert, Test}
+
+/**
+  * Test suite for the [[ConcurrentJobBenchmark]].
+  */
+class ConcurrentJobBenchmarkTest {
+
+  @Test
+  def testRunConcurrently(): Unit = {
+    val numRuns = new AtomicInteger
+    val job: ConcurrentJobBenchmark.Job = (_, _) => {
+      if (numRuns.incrementAndGet() % 4 == 0) throw new RuntimeException("Simulated failure.")
+    }
+
+    val threadResults = ConcurrentJobBenchmark.runConcurrently(job, 3, 4, () => null)
+    Assert.assertEquals(3, threadResults.size)
+    Assert.assertEquals(12, numRuns.get)
+    val jobResults = threadResults.flatMap(_.jobResults)
+    Assert.assertEquals(12, jobResults.size)
+    Assert.assertEquals(3, jobResults.count(_.isFailed))
+    Assert.assertTrue(jobResults.forall(_.optimizationMillis == 0))
+    Assert.assertTrue(threadResults.forall(result => result.endNanos >= result.startNanos))
+  }
+
+}
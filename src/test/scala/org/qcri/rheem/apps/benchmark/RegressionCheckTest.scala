@@ -0,0 +1,71 @@
+package org.qcri.rheem.apps.benchmark
+
+import de.hpi.isg.profiledb.store.model.{Experiment, Subject}
+import org.junit.{Assert, Test}
+import org.qcri.rheem.apps.util.ValuesMeasurement
+
+/**
+  * Test suite for the [[RegressionCheck]].
+  */
+class RegressionCheckTest {
+
+  @Test
+  def testPermutationTestDetectsShift(): Unit = {
+    val pValue = RegressionCheck.permutationTest(Seq(100d, 102d, 98d, 101d, 99d), Seq(120d, 118d, 122d, 121d, 119d))
+    Assert.assertEquals(1d / 252, pValue, 1e-9)
+  }
+
+  @Test
+  def testPermutationTestWithoutShift(): Unit = {
+    val pValue = RegressionCheck.permutationTest(Seq(100d, 120d, 98d, 119d), Seq(102d, 118d, 99d, 121d))
+    Assert.assertTrue(pValue > 0.3)
+  }
+
+  @Test
+  def testPermutationTestSampling(): Unit = {
+    val baseline = (1 to 20).map(_.toDouble)
+    val pValue = RegressionCheck.permutationTest(baseline, baseline.map(_ + 30), numSamples = 1000)
+    Assert.assertEquals(1d / 1001, pValue, 1e-9)
+  }
+
+  @Test
+  def testMinPValue(): Unit = {
+    // A single run per side can never be significant.
+    Assert.assertEquals(0.5, RegressionCheck.minPValue(1, 1), 1e-9)
+    Assert.assertEquals(0.5, RegressionCheck.permutationTest(Seq(100d), Seq(1000d)), 1e-9)
+    Assert.assertEquals(1d / 20, RegressionCheck.minPValue(3, 3), 1e-9)
+    Assert.assertEquals(1d / 252, RegressionCheck.minPValue(5, 5), 1e-9)
+    Assert.assertEquals(1d / 1001, RegressionCheck.minPValue(20, 20, numSamples = 1000), 1e-9)
+  }
+
+  @Test
+  def testRelativeChange(): Unit = {
+    Assert.assertEquals(Some(0.5), RegressionCheck.relativeChange(100, 150, isHigherBetter = false))
+    Assert.assertEquals(Some(0.5), RegressionCheck.relativeChange(100, 50, isHigherBetter = true))
+    Assert.assertEquals(None, RegressionCheck.relativeChange(0, 3, isHigherBetter = false))
+    Assert.assertEquals(None, RegressionCheck.relativeChange(0, 0, isHigherBetter = true))
+  }
+
+  @Test
+  def testGroupingKeyIgnoresExperimentSpecs(): Unit = {
+    val baselineKey = RegressionCheck.groupingKey(
+      Map("app" -> "sgd", "measuredRuns" -> 5, "appArgs" -> "exp(sgd-1;tags=baseline) java preaggregation file:/data"))
+    val candidateKey = RegressionCheck.groupingKey(
+      Map("measuredRuns" -> 5, "appArgs" -> "exp(sgd-2;tags=candidate) java preaggregation file:/data", "app" -> "sgd"))
+    Assert.assertEquals(baselineKey, candidateKey)
+    Assert.assertNotEquals(baselineKey,
+      RegressionCheck.groupingKey(Map("app" -> "sgd", "measuredRuns" -> 5, "appArgs" -> "java regular file:/data")))
+  }
+
+  @Test
+  def testValueMetric(): Unit = {
+    val experiment = new Experiment("exp", new Subject("app", "1.0"))
+    ValuesMeasurement.addTo(experiment, "throughput", "jobsPerSecond" -> 12.5)
+
+    val metric = RegressionCheck.parseMetric("throughput:throughput:jobsPerSecond")
+    Assert.assertTrue(metric.isHigherBetter)
+    Assert.assertEquals(Some(12.5), metric.extract(experiment))
+    Assert.assertEquals(None, RegressionCheck.parseMetric("latency:throughput:other").extract(experiment))
+  }
+
+}
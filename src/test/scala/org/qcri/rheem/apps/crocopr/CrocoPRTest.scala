@@ -0,0 +1,64 @@
+package org.qcri.rheem.apps.crocopr
+
+import java.io.{File, PrintWriter}
+
+import de.hpi.isg.profiledb.store.model.{Experiment, Subject}
+import org.junit.Assert._
+import org.junit.Test
+import org.qcri.rheem.core.api.Configuration
+import org.qcri.rheem.java.Java
+
+/**
+  * Test suite for [[CrocoPR]].
+  */
+class CrocoPRTest {
+
+  implicit val experiment = new Experiment("test", new Subject("test", "23.42"))
+
+  implicit val configuration = new Configuration
+
+  private def createLinkFile(links: (String, String)*): String = {
+    val file = File.createTempFile("crocopr", ".nt")
+    file.deleteOnExit()
+    val writer = new PrintWriter(file, "UTF-8")
+    try links.foreach { case (source, target) =>
+      writer.println(s"${LinkParser.resourcePrefix}$source> ${LinkParser.predicate} ${LinkParser.resourcePrefix}$target> .")
+    } finally writer.close()
+    file.toURI.toString
+  }
+
+  @Test
+  def shouldRankTheSameWithHashedVertexIds(): Unit = {
+    val inputUrl = createLinkFile("A" -> "B", "B" -> "C", "C" -> "A", "D" -> "A", "D" -> "C")
+    val crocoPR = new CrocoPR(Java.basicPlugin)
+
+    val zippedRanks = crocoPR(inputUrl, inputUrl, 50, tolerance = Some(1e-6)).toMap
+    val hashedRanks = crocoPR(inputUrl, inputUrl, 50, tolerance = Some(1e-6), isHashIds = true).toMap
+
+    assertEquals(Set("A", "B", "C", "D"), zippedRanks.keySet)
+    assertEquals(zippedRanks.keySet, hashedRanks.keySet)
+    zippedRanks.foreach { case (page, rank) => assertEquals(rank.doubleValue, hashedRanks(page).doubleValue, 1e-6) }
+  }
+
+  @Test
+  def shouldRankTheSameWithDeltas(): Unit = {
+    // There are no dangling vertices, so that the built-in PageRank is comparable, too.
+    val inputUrl = createLinkFile("A" -> "B", "A" -> "D", "B" -> "C", "C" -> "A", "D" -> "C")
+    val crocoPR = new CrocoPR(Java.basicPlugin)
+
+    val builtInRanks = crocoPR(inputUrl, inputUrl, 100).toMap
+    val ranks = crocoPR(inputUrl, inputUrl, 200, tolerance = Some(1e-9)).toMap
+    val exactDeltaRanks = crocoPR(inputUrl, inputUrl, 200, tolerance = Some(1e-9), deltaEpsilon = Some(0d)).toMap
+    val deltaRanks = crocoPR(inputUrl, inputUrl, 200, tolerance = Some(1e-9), deltaEpsilon = Some(1e-6)).toMap
+
+    assertEquals(Set("A", "B", "C", "D"), ranks.keySet)
+    assertEquals(1d, ranks.values.map(_.doubleValue).sum, 1e-5)
+    ranks.foreach { case (page, rank) =>
+      assertEquals(rank.doubleValue, builtInRanks(page).doubleValue, 1e-5)
+      assertEquals(rank.doubleValue, exactDeltaRanks(page).doubleValue, 1e-5)
+      // The changes that are still pending can add up to 4 * 1e-6 / (1 - 0.85) in total.
+      assertEquals(rank.doubleValue, deltaRanks(page).doubleValue, 1e-4)
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.qcri.rheem.apps.crocopr
+
+import org.junit.Assert._
+import org.junit.Test
+import org.qcri.rheem.core.api.exception.RheemException
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test suite for [[LinkParser]].
+  */
+class LinkParserTest {
+
+  @Test
+  def shouldParseLinks(): Unit = {
+    val links = new LinkParser().apply(
+      "<http://dbpedia.org/resource/Berlin>  <http://dbpedia.org/ontology/wikiPageWikiLink>\t<http://dbpedia.org/resource/Spree_(river)> ."
+    ).toList
+    assertEquals(List(("Berlin", "Spree_(river)")), links)
+  }
+
+  @Test
+  def shouldSkipCommentsAndBlankLines(): Unit = {
+    val parser = new LinkParser
+    assertTrue(parser("# started 2015-10-01").isEmpty)
+    assertTrue(parser("   ").isEmpty)
+  }
+
+  @Test(expected = classOf[RheemException])
+  def shouldRejectOtherPredicates(): Unit = {
+    new LinkParser().apply(
+      "<http://dbpedia.org/resource/Berlin> <http://dbpedia.org/ontology/country> <http://dbpedia.org/resource/Germany> ."
+    )
+  }
+
+  @Test(expected = classOf[RheemException])
+  def shouldRejectTrailingGarbage(): Unit = {
+    new LinkParser().apply(
+      "<http://dbpedia.org/resource/A> <http://dbpedia.org/ontology/wikiPageWikiLink> <http://dbpedia.org/resource/B> . x"
+    )
+  }
+
+  @Test(expected = classOf[RheemException])
+  def shouldRequireWhitespaceBetweenTerms(): Unit = {
+    new LinkParser().apply(
+      "<http://dbpedia.org/resource/A><http://dbpedia.org/ontology/wikiPageWikiLink> <http://dbpedia.org/resource/B> ."
+    )
+  }
+
+  @Test
+  def shouldHashConsistently(): Unit = {
+    assertEquals(LinkParser.hash("A"), LinkParser.hash(new String("A")))
+    assertNotEquals(LinkParser.hash("A"), LinkParser.hash("B"))
+  }
+
+}
@@ -0,0 +1,83 @@
+package org.qcri.rheem.apps.datagen
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.{Assert, Test}
+import org.qcri.rheem.apps.crocopr.LinkParser
+import org.qcri.rheem.apps.sgd.SparsePoint
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test suite for the [[DataGenerator]]s.
+  */
+class DataGeneratorTest {
+
+  private def generate(generator: DataGenerator, size: String, seed: Long, parallelism: Int): Seq[String] = {
+    val file = File.createTempFile("datagen", ".txt")
+    file.deleteOnExit()
+    DataGenerator.write(generator, file.toURI.toString, DataGenerator.parseSize(size), seed, parallelism)
+    Files.readAllLines(file.toPath).toSeq
+  }
+
+  @Test
+  def testIndependenceOfParallelism(): Unit = {
+    val generator = new ClusteredPointsGenerator(5, 2, 1d, 42L)
+    val lines = generate(generator, "25000", 42L, 1)
+    Assert.assertEquals(25000, lines.size)
+    Assert.assertEquals(lines, generate(generator, "25000", 42L, 4))
+    Assert.assertNotEquals(lines, generate(generator, "25000", 43L, 4))
+    lines.foreach(line => Assert.assertEquals(2, line.split(",").map(_.toDouble).length))
+  }
+
+  @Test
+  def testByteSize(): Unit = {
+    val lines = generate(new ZipfTextGenerator(1000, 1d, 10), "100kb", 1L, 2)
+    val numBytes = lines.map(_.length + 1).sum
+    Assert.assertTrue(numBytes >= 100 * 1024)
+    Assert.assertTrue(numBytes - lines.last.length - 1 < 100 * 1024)
+    lines.foreach(line => Assert.assertTrue(line.matches("[a-z]+( [a-z]+)*")))
+  }
+
+  @Test
+  def testLibsvm(): Unit = {
+    val lines = generate(new LibsvmGenerator(100, .1d, 0d, 42L), "1000", 42L, 2)
+    val points = lines.map(SparsePoint.parse)
+    points.foreach { point =>
+      Assert.assertTrue(point.label == 0d || point.label == 1d)
+      Assert.assertTrue(point.indices.sliding(2).forall(pair => pair.length < 2 || pair(0) < pair(1)))
+    }
+    Assert.assertEquals(10d, points.map(_.indices.length).sum / 1000d, 1d)
+  }
+
+  @Test
+  def testLinks(): Unit = {
+    val parser = new LinkParser
+    val links = generate(new LinkGraphGenerator(100, 1d, 42L), "1000", 42L, 2)
+      .flatMap(line => iterableAsScalaIterable(parser.apply(line)))
+    Assert.assertEquals(1000, links.size)
+    links.foreach { case (source, target) => Assert.assertNotEquals(source, target) }
+  }
+
+  @Test
+  def testPlantedInds(): Unit = {
+    val schema = new IndSchema(2, 3, 2, 100, 42L)
+    Assert.assertEquals(2, schema.plantedInds.size)
+    val columns = (0 until schema.numFiles).flatMap { file =>
+      generate(new IndCsvGenerator(schema, file), "1000", 42L + file, 2).map(_.split(";").toSeq).transpose.map(_.toSet)
+    }
+    schema.plantedInds.foreach { case (dep, ref) => Assert.assertTrue(columns(dep).subsetOf(columns(ref))) }
+  }
+
+  @Test
+  def testAppendWord(): Unit = {
+    val words = Seq(0, 25, 26, 27, 701, 702).map { rank =>
+      val out = new java.lang.StringBuilder
+      ZipfTextGenerator.appendWord(out, rank)
+      out.toString
+    }
+    Assert.assertEquals(Seq("a", "z", "aa", "ab", "zz", "aaa"), words)
+  }
+
+}
@@ -7,6 +7,8 @@ import org.qcri.rheem.core.api.Configuration
 import org.qcri.rheem.java.Java
 import org.qcri.rheem.spark.Spark
 
+import scala.collection.JavaConversions._
+
 /**
   * Test suite for [[Kmeans]].
   */
@@ -20,6 +22,20 @@ class KmeansTest {
     Thread.currentThread().getContextClassLoader.getResource(fileName).toString
 
 
+  @Test
+  def shouldFindNearestCentroids(): Unit = {
+    val centroids = Centroids(seqAsJavaList(Seq(TaggedPoint(0, 0, 1), TaggedPoint(10, 10, 2))))(_.x, _.y, _.centroidId)
+    assertEquals(1, centroids.nearest(Point(1, 2)))
+    assertEquals(2, centroids.nearest(8, 7))
+
+    // The PostgreSQL variant has its own point classes.
+    val postgresCentroids = Centroids(seqAsJavaList(Seq(postgres.TaggedPoint(0, 0, 1), postgres.TaggedPoint(10, 10, 2))))(
+      _.x, _.y, _.centroidId
+    )
+    assertEquals(2, postgresCentroids.nearest(8, 7))
+    assertEquals(-1, Centroids(seqAsJavaList(Seq[TaggedPoint]()))(_.x, _.y, _.centroidId).nearest(0, 0))
+  }
+
   @Test
   def shouldWorkWithJava() = {
     val kmeans = new Kmeans(Java.basicPlugin)
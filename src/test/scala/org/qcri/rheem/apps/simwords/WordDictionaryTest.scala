@@ -0,0 +1,34 @@
+package org.qcri.rheem.apps.simwords
+
+import org.junit.{Assert, Test}
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test suite for the [[WordDictionary]].
+  */
+class WordDictionaryTest {
+
+  @Test
+  def testLookups(): Unit = {
+    val wordIds = (0 until 1000).map(id => (s"word$id", id * 7))
+    val dictionary = new WordDictionary(wordIds)
+
+    Assert.assertEquals(1000, dictionary.size)
+    for ((word, id) <- wordIds) {
+      Assert.assertEquals(id, dictionary.getId(word))
+      Assert.assertEquals(word, dictionary.getWord(id))
+    }
+    Assert.assertEquals(-1, dictionary.getId("unknown"))
+    Assert.assertNull(dictionary.getWord(1))
+  }
+
+  @Test
+  def testEmptyDictionary(): Unit = {
+    val dictionary = new WordDictionary(Seq[(String, Int)]())
+
+    Assert.assertEquals(-1, dictionary.getId("word"))
+    Assert.assertNull(dictionary.getWord(0))
+  }
+
+}
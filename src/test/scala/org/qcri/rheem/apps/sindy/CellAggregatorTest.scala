@@ -0,0 +1,42 @@
+package org.qcri.rheem.apps.sindy
+
+import java.nio.file.Files
+
+import org.junit.Assert._
+import org.junit.Test
+import org.qcri.rheem.core.api.exception.RheemException
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test suite for [[CellAggregator]].
+  */
+class CellAggregatorTest {
+
+  @Test
+  def shouldMergeSpilledRunsAndDeleteThem(): Unit = {
+    val spillDir = Files.createTempDirectory("sindy-test").toFile
+    spillDir.deleteOnExit()
+    // A budget of 0 bytes spills after every row.
+    val aggregator = new CellAggregator(10, 2, ';', 0L, spillDir.getPath)
+    val cells = aggregator(seqAsJavaList(Seq("a;b", "b;c", "a;a")))
+    assertEquals(3, spillDir.listFiles.length)
+
+    val result = cells.iterator.map { case (value, columnSet) => value -> columnSet.toArray.toSeq }.toMap
+    assertEquals(Map("a" -> Seq(10, 11), "b" -> Seq(10, 11), "c" -> Seq(11)), result)
+    assertEquals(0, spillDir.listFiles.length)
+
+    try {
+      cells.iterator
+      fail("Expected the second traversal to fail.")
+    } catch {
+      case _: RheemException =>
+    }
+  }
+
+  @Test(expected = classOf[RheemException])
+  def shouldRejectSurplusFields(): Unit = {
+    new CellAggregator(0, 2, ';', Long.MaxValue, null).apply(seqAsJavaList(Seq("a;b", "a;b;c")))
+  }
+
+}
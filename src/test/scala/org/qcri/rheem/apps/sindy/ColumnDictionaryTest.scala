@@ -0,0 +1,35 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io.{File, PrintWriter}
+
+import org.junit.Assert._
+import org.junit.Test
+
+/**
+  * Test suite for [[ColumnDictionary]].
+  */
+class ColumnDictionaryTest {
+
+  private def createCsvFile(rows: String*): String = {
+    val file = File.createTempFile("sindy", ".csv")
+    file.deleteOnExit()
+    val writer = new PrintWriter(file, "UTF-8")
+    try rows.foreach(writer.println) finally writer.close()
+    file.toURI.toString
+  }
+
+  @Test
+  def shouldResolveColumnsAroundEmptyFiles(): Unit = {
+    val (file1, empty1, empty2, file2, empty3) =
+      (createCsvFile("a;b;c"), createCsvFile(), createCsvFile(), createCsvFile("d;e"), createCsvFile())
+    val dictionary = ColumnDictionary.create(Seq(file1, empty1, empty2, file2, empty3), ';')
+
+    assertEquals(5, dictionary.size)
+    assertEquals(s"$file1[0]", dictionary.resolve(0))
+    assertEquals(s"$file1[2]", dictionary.resolve(2))
+    assertEquals(s"$file2[0]", dictionary.resolve(3))
+    assertEquals(s"$file2[1]", dictionary.resolve(4))
+    assertEquals("???[5]", dictionary.resolve(5))
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.qcri.rheem.apps.sindy
+
+import org.junit.Assert._
+import org.junit.Test
+
+/**
+  * Test suite for [[ColumnSet]].
+  */
+class ColumnSetTest {
+
+  private def columnSet(ids: Int*) = ids.map(ColumnSet(_)).reduce(_ unionWith _)
+
+  @Test
+  def shouldUnionSparseSets(): Unit = {
+    val set = columnSet(5, 1000, 3).unionWith(columnSet(3, 7))
+    assertArrayEquals(Array(3, 5, 7, 1000), set.toArray)
+    assertFalse(set.isDense)
+  }
+
+  @Test
+  def shouldSwitchToBitsetForDenseSets(): Unit = {
+    val set = columnSet(0 until 200: _*)
+    assertTrue(set.isDense)
+    assertEquals(200, set.size)
+    assertTrue(set.contains(199))
+    assertFalse(set.contains(200))
+    assertArrayEquals((0 until 200).toArray, set.toArray)
+  }
+
+  @Test
+  def shouldIntersectMixedSets(): Unit = {
+    val dense = columnSet(0 until 200: _*)
+    val sparse = columnSet(1, 150, 5000)
+    assertArrayEquals(Array(1, 150), dense.toMutable.intersectWith(sparse).toArray)
+    assertArrayEquals(Array(1, 150), columnSet(1, 150, 5000).intersectWith(columnSet(0 until 200: _*)).toArray)
+    assertArrayEquals(Array(64, 65), columnSet(0 until 200: _*).intersectWith(columnSet(64 until 66: _*)).toArray)
+  }
+
+  @Test
+  def shouldCopyFrozenSets(): Unit = {
+    val frozen = columnSet(1, 2, 3).freeze()
+    val copy = frozen.toMutable.intersectWith(columnSet(2))
+    assertArrayEquals(Array(2), copy.toArray)
+    assertArrayEquals(Array(1, 2, 3), frozen.toArray)
+  }
+
+  @Test(expected = classOf[IllegalStateException])
+  def shouldNotModifyFrozenSets(): Unit = {
+    columnSet(1, 2, 3).freeze().unionWith(columnSet(4))
+  }
+
+}
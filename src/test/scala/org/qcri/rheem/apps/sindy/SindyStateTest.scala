@@ -0,0 +1,47 @@
+package org.qcri.rheem.apps.sindy
+
+import java.io.{File, PrintWriter}
+import java.nio.file.Files
+
+import org.junit.Assert._
+import org.junit.Test
+
+/**
+  * Test suite for [[SindyState]].
+  */
+class SindyStateTest {
+
+  @Test
+  def shouldEscapeCellValues(): Unit = {
+    val value = "a\tb\nc\\d\re\\n"
+    val columnSet = ColumnSet(3).unionWith(ColumnSet(7))
+    val line = SindyState.formatCells((value, columnSet))
+    assertFalse(line.contains('\n') || line.contains('\r'))
+    assertEquals(1, line.count(_ == '\t'))
+
+    val (parsedValue, parsedColumnSet) = SindyState.parseCells(line)
+    assertEquals(value, parsedValue)
+    assertArrayEquals(Array(3, 7), parsedColumnSet.toArray)
+  }
+
+  @Test
+  def shouldIgnoreIncompleteStateFiles(): Unit = {
+    val stateDir = Files.createTempDirectory("sindy-state").toFile
+    stateDir.deleteOnExit()
+    val stateUrl = stateDir.toURI.toString
+    val dictionary = new ColumnDictionary(IndexedSeq("file:/a.csv"), IndexedSeq(0), IndexedSeq(2))
+    new SindyState(dictionary, IndexedSeq("file:/cells-0"), Map(0 -> Array(1))).save(stateUrl)
+
+    // Simulate a crash while saving a newer state.
+    val incompleteFile = new File(stateDir, s"sindy-state-${System.currentTimeMillis + 1000}.tsv")
+    val writer = new PrintWriter(incompleteFile, "UTF-8")
+    try writer.println("file\t0\t2\tfile:/a.csv\tfile:/cells-0") finally writer.close()
+
+    val state = SindyState.load(stateUrl)
+    assertEquals(IndexedSeq("file:/a.csv"), state.columnDictionary.files)
+    assertEquals(IndexedSeq("file:/cells-0"), state.cellUrls)
+    assertArrayEquals(Array(1), state.inds(0))
+    stateDir.listFiles.foreach(_.deleteOnExit())
+  }
+
+}
@@ -0,0 +1,31 @@
+package org.qcri.rheem.apps.util
+
+import org.junit.{Assert, Test}
+import org.qcri.rheem.core.api.Configuration
+
+/**
+  * Test suite for [[AppsKryo]].
+  */
+class AppsKryoTest {
+
+  @Test
+  def testDisabledByDefault(): Unit = {
+    val configuration = new Configuration
+    AppsKryo.enable(configuration)
+    Assert.assertNull(configuration.getStringProperty("spark.serializer", null))
+    Assert.assertNull(configuration.getStringProperty("spark.kryo.registrator", null))
+  }
+
+  @Test
+  def testEnable(): Unit = {
+    val configuration = new Configuration
+    configuration.getProperties.set("rheem.apps.kryo", "true")
+    configuration.getProperties.set("spark.serializer", "org.apache.spark.serializer.JavaSerializer")
+    AppsKryo.enable(configuration)
+    Assert.assertEquals("org.apache.spark.serializer.JavaSerializer", configuration.getStringProperty("spark.serializer"))
+    // The registrator is only available with the standalone profile.
+    val expectedRegistrator = if (AppsKryo.isRegistratorAvailable) AppsKryo.registratorClassName else null
+    Assert.assertEquals(expectedRegistrator, configuration.getStringProperty("spark.kryo.registrator", null))
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.qcri.rheem.apps.util
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.{After, Assert, Test}
+
+/**
+  * Test suite for the [[BroadcastCache]].
+  */
+class BroadcastCacheTest {
+
+  @After
+  def tearDown(): Unit = BroadcastCache.clear()
+
+  @Test
+  def testReuseWithinIteration(): Unit = {
+    val broadcast = java.util.Arrays.asList(1, 2, 3)
+    val numBuilds = new AtomicInteger
+    def getSum(iteration: Int) = BroadcastCache.getOrCreate[Int, Integer](broadcast, iteration, "numbers", "sum") { numbers =>
+      numBuilds.incrementAndGet()
+      scala.collection.JavaConversions.collectionAsScalaIterable(numbers).sum
+    }
+
+    Assert.assertEquals(6, getSum(0).intValue)
+    Assert.assertEquals(6, getSum(0).intValue)
+    Assert.assertEquals(1, numBuilds.get)
+    Assert.assertEquals(6, getSum(1).intValue)
+    Assert.assertEquals(2, numBuilds.get)
+    Assert.assertEquals(1, BroadcastCache.size)
+  }
+
+  @Test
+  def testRebuildForOtherBroadcast(): Unit = {
+    def getSize(broadcast: java.util.Collection[String]) =
+      BroadcastCache.getOrCreate[String, Integer](broadcast, 0, "words", "size")(_.size)
+
+    Assert.assertEquals(1, getSize(java.util.Arrays.asList("a")).intValue)
+    Assert.assertEquals(2, getSize(java.util.Arrays.asList("a", "b")).intValue)
+  }
+
+  @Test
+  def testKeepInterleavedBroadcastsWithSameName(): Unit = {
+    // E.g., two jobs in the same JVM that both broadcast "centroids".
+    val broadcast1 = java.util.Arrays.asList(1, 2, 3)
+    val broadcast2 = java.util.Arrays.asList(1, 2, 3)
+    val numBuilds = new AtomicInteger
+    def getSum(broadcast: java.util.Collection[Int]) =
+      BroadcastCache.getOrCreate[Int, Integer](broadcast, 0, "centroids", "sum") { numbers =>
+        numBuilds.incrementAndGet()
+        scala.collection.JavaConversions.collectionAsScalaIterable(numbers).sum
+      }
+
+    for (_ <- 1 to 3) {
+      Assert.assertEquals(6, getSum(broadcast1).intValue)
+      Assert.assertEquals(6, getSum(broadcast2).intValue)
+    }
+    Assert.assertEquals(2, numBuilds.get)
+    Assert.assertEquals(2, BroadcastCache.size)
+  }
+
+}
@@ -0,0 +1,46 @@
+package org.qcri.rheem.apps.util
+
+import de.hpi.isg.profiledb.store.model.{Experiment, Subject}
+import org.junit.{Assert, Test}
+import org.qcri.rheem.core.api.Configuration
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test suite for the [[Instrumentation]].
+  */
+class InstrumentationTest {
+
+  @Test
+  def testDisabled(): Unit = {
+    val configuration = new Configuration
+    configuration.getProperties.set("rheem.apps.instrumentation", "false")
+    Instrumentation.start(configuration)
+
+    val udf = (i: Int) => i + 1
+    Assert.assertSame(udf, Instrumentation.wrap("increment", udf))
+  }
+
+  @Test
+  def testEnabled(): Unit = {
+    val configuration = new Configuration
+    configuration.getProperties.set("rheem.apps.instrumentation", "true")
+    Instrumentation.start(configuration)
+
+    val udf = Instrumentation.wrap("increment", (i: Int) => i + 1)
+    val sum = Instrumentation.wrap2("sum", (i: Int, j: Int) => i + j)
+    val key = Instrumentation.wrapKey("sum", (i: Int) => i % 2)
+    Assert.assertEquals(3, sum(udf(0), udf(1)))
+    Assert.assertEquals(1, key(3))
+
+    Assert.assertEquals(2L, Instrumentation.getStatistics("increment").invocations.sum)
+    Assert.assertEquals(1L, Instrumentation.getStatistics("sum").invocations.sum)
+    Assert.assertEquals(1L, Instrumentation.getStatistics("sum (key)").invocations.sum)
+
+    val experiment = new Experiment("test", new Subject("test", "1"))
+    Instrumentation.stop(experiment)
+    val measurements = experiment.getMeasurements.map(_.getId).toSet
+    Assert.assertEquals(Set("increment", "sum", "sum (key)", "gc"), measurements)
+  }
+
+}
@@ -0,0 +1,32 @@
+package org.qcri.rheem.apps.util
+
+import org.junit.{Assert, Test}
+
+/**
+  * Test suite for the [[Statistics]].
+  */
+class StatisticsTest {
+
+  @Test
+  def testStatistics(): Unit = {
+    val statistics = new Statistics(Seq(5d, 1d, 4d, 2d, 3d))
+
+    Assert.assertEquals(5, statistics.count)
+    Assert.assertEquals(1d, statistics.min, 0d)
+    Assert.assertEquals(5d, statistics.max, 0d)
+    Assert.assertEquals(3d, statistics.mean, 0d)
+    Assert.assertEquals(3d, statistics.median, 0d)
+    Assert.assertEquals(4.8d, statistics.percentile(95), 1e-9)
+    Assert.assertEquals(math.sqrt(2.5), statistics.stddev, 1e-9)
+  }
+
+  @Test
+  def testSingleValue(): Unit = {
+    val statistics = new Statistics(Seq(42d))
+
+    Assert.assertEquals(42d, statistics.median, 0d)
+    Assert.assertEquals(42d, statistics.percentile(95), 0d)
+    Assert.assertEquals(0d, statistics.stddev, 0d)
+  }
+
+}